@@ -158,12 +158,13 @@ public abstract class AbstractGameState { // TODO (HIGH) [AI] separate human mov
     }
 
     /**
-     * Highlights the surroundings of a {@link GridSpot} on the main view.
+     * Highlights the surroundings of a {@link GridSpot} on the main view, which are its neighbors on the frontier of the
+     * grid.
      * @param spot is the {@link GridSpot} that determines where to highlight.
      */
     protected void highlightSurroundings(GridSpot spot) {
         for (GridSpot neighbor : grid.getNeighbors(spot, true, GridDirection.directNeighbors())) {
-            if (neighbor != null && neighbor.isFree()) {
+            if (grid.isOnFrontier(neighbor)) {
                 views.onMainView(it -> it.setSelectionHighlight(neighbor.getX(), neighbor.getY()));
             }
         }
@@ -60,7 +60,7 @@ public class StateGameOver extends AbstractGameState {
     @Override
     protected void entry() {
         System.out.println("FINAL PATTERNS:"); // TODO (LOW) [PRINT] remove debug output
-        for (GridPattern pattern : grid.getAllPatterns()) {
+        for (GridPattern pattern : grid.getOccupiedPatterns()) { // unoccupied patterns are not scored
             System.out.println(pattern); // TODO (LOW) [PRINT] remove debug output
             pattern.forceDisburse(settings.getSplitPatternScore());
         }
@@ -1,13 +1,22 @@
 package carcassonne.control.state;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import carcassonne.model.Meeple;
 import carcassonne.model.Player;
+import carcassonne.model.Round;
 import carcassonne.model.ai.AbstractCarcassonneMove;
 import carcassonne.model.ai.ArtificialIntelligence;
+import carcassonne.model.grid.Grid;
 import carcassonne.model.grid.GridDirection;
 import carcassonne.model.grid.GridPattern;
 import carcassonne.model.grid.GridSpot;
+import carcassonne.model.grid.PatternEvent;
+import carcassonne.model.grid.PatternEventType;
+import carcassonne.model.grid.PatternListener;
 import carcassonne.model.tile.Tile;
+import carcassonne.model.tile.TileStack;
 import carcassonne.settings.GameSettings;
 import carcassonne.view.ViewFacade;
 import carcassonne.view.util.GameMessage;
@@ -18,6 +27,8 @@ import carcassonne.view.util.GameMessage;
  */
 public class StateManning extends AbstractGameState {
     private final boolean[] noMeeplesNotification;
+    private final List<PatternEvent> completedPatterns; // patterns completed during the current turn
+    private final PatternListener completionListener;
 
     /**
      * Constructor of the state.
@@ -29,6 +40,12 @@ public class StateManning extends AbstractGameState {
     public StateManning(StateMachine stateMachine, GameSettings settings, ViewFacade views, ArtificialIntelligence playerAI) {
         super(stateMachine, settings, views, playerAI);
         noMeeplesNotification = new boolean[GameSettings.MAXIMAL_PLAYERS]; // stores whether a player was already notified about a lack of meeples
+        completedPatterns = new ArrayList<>();
+        completionListener = event -> {
+            if (event.type() == PatternEventType.COMPLETED) {
+                completedPatterns.add(event);
+            }
+        };
     }
 
     @Override
@@ -56,6 +73,16 @@ public class StateManning extends AbstractGameState {
         // do nothing.
     }
 
+    @Override
+    public void updateState(Round round, TileStack tileStack, Grid grid) {
+        if (this.grid != null) {
+            this.grid.removePatternListener(completionListener);
+        }
+        super.updateState(round, tileStack, grid);
+        completedPatterns.clear();
+        grid.addPatternListener(completionListener);
+    }
+
     @Override
     public void skip() {
         if (!round.getActivePlayer().isComputerControlled()) {
@@ -84,19 +111,18 @@ public class StateManning extends AbstractGameState {
         startNextTurn();
     }
 
-    // gives the players the points they earned.
+    // gives the players the points they earned for the patterns completed during this turn.
     private void processGridPatterns() {
-        Tile tile = getSelectedTile();
-        for (GridPattern pattern : grid.getModifiedPatterns(tile.getGridSpot())) {
-            if (pattern.isComplete()) {
-                for (Meeple meeple : pattern.getMeepleList()) {
-                    GridSpot spot = meeple.getLocation();
-                    views.onMainView(it -> it.removeMeeple(spot.getX(), spot.getY()));
-                }
-                pattern.disburse(settings.getSplitPatternScore());
-                updateScores();
+        for (PatternEvent event : completedPatterns) {
+            GridPattern pattern = event.createPattern(); // includes a meeple placed after the completion
+            for (Meeple meeple : pattern.getMeepleList()) {
+                GridSpot spot = meeple.getLocation();
+                views.onMainView(it -> it.removeMeeple(spot.getX(), spot.getY()));
             }
+            pattern.disburse(settings.getSplitPatternScore());
+            updateScores();
         }
+        completedPatterns.clear();
     }
 
     // starts the next turn and changes the state to state placing.
@@ -5,6 +5,7 @@ import java.util.LinkedList;
 import java.util.List;
 
 import carcassonne.model.grid.Grid;
+import carcassonne.model.grid.ZobristKeys;
 import carcassonne.model.tile.TileStack;
 import carcassonne.settings.GameSettings;
 
@@ -46,6 +47,15 @@ public class Round {
         return players[activePlayerIndex];
     }
 
+    /**
+     * Returns the Zobrist hash of the current position, which combines the hash of the grid with the player to move.
+     * @return the 64-bit position hash.
+     * @see Grid#getHash()
+     */
+    public long getHash() {
+        return grid.getHash() ^ ZobristKeys.playerToMoveKey(activePlayerIndex);
+    }
+
     /**
      * Checks if there are any human players in a match.
      * @return true if at least human player is taking part.
@@ -31,21 +31,23 @@ public abstract class AbstractCarcassonneMove implements Comparable<AbstractCarc
 
     /**
      * Creates the move. Does not check if the move is legal.
-     * @param tile is the tile placed in the move. Needs to be assigned to a {@link GridSpot}.
+     * @param tile is the tile placed in the move. Must not be placed, as the move places it when being applied.
+     * @param gridSpot is the {@link GridSpot} on which the tile is placed in the move.
      * @param meeplePosition is the position on which the meeple is placed on the tile.
      * @param actingPlayer is the player that is executing the move.
      * @param settings are the game settings.
      */
-    public AbstractCarcassonneMove(TemporaryTile tile, GridDirection meeplePosition, Player actingPlayer, GameSettings settings) {
+    public AbstractCarcassonneMove(TemporaryTile tile, GridSpot gridSpot, GridDirection meeplePosition, Player actingPlayer,
+            GameSettings settings) {
         this.tile = tile;
+        this.gridSpot = gridSpot;
         this.meeplePosition = meeplePosition;
         this.actingPlayer = actingPlayer;
         this.settings = settings;
-        if (!tile.isPlaced()) {
-            throw new IllegalStateException("Tile needs to be placed: " + tile);
+        if (tile.isPlaced()) {
+            throw new IllegalStateException("Tile must not be placed: " + tile);
         }
         fieldValue = Double.NaN; // field score not yet set
-        gridSpot = tile.getGridSpot();
         value = calculateValue();
     }
 
@@ -102,6 +104,23 @@ public abstract class AbstractCarcassonneMove implements Comparable<AbstractCarc
         return tile.getTerrain(meeplePosition);
     }
 
+    /**
+     * Getter for the grid spot on which the tile is placed in this move.
+     * @return the grid spot.
+     */
+    public GridSpot getGridSpot() {
+        return gridSpot;
+    }
+
+    /**
+     * Getter for the temporary tile that represents the tile placement of this move. It is reused whenever the move is
+     * applied to the grid.
+     * @return the temporary tile with the correct rotation.
+     */
+    public TemporaryTile getTemporaryTile() {
+        return tile;
+    }
+
     /**
      * Getter for the tile placed in this move.
      * @return the tile with the correct rotation.
@@ -118,6 +137,14 @@ public abstract class AbstractCarcassonneMove implements Comparable<AbstractCarc
         return tile.getRotation();
     }
 
+    /**
+     * Getter for the game settings under which the move was created.
+     * @return the game settings.
+     */
+    public GameSettings getSettings() {
+        return settings;
+    }
+
     /**
      * Getter for the combined value of the move for all grid patterns.
      * @return the combined value.
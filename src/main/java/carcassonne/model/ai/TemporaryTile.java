@@ -14,6 +14,7 @@ import carcassonne.settings.GameSettings;
 public class TemporaryTile extends Tile {
 
     private final Tile original;
+    private TemporaryMeeple temporaryMeeple; // reused for every placement of a meeple of the same player
 
     public TemporaryTile(Tile original) {
         super(original.getType());
@@ -35,11 +36,17 @@ public class TemporaryTile extends Tile {
 
     @Override
     public void placeMeeple(Player player, GridDirection position, GameSettings settings) {
-        super.placeMeeple(player, position, new TemporaryMeeple(player), settings);
+        if (temporaryMeeple == null || temporaryMeeple.getOwner() != player) {
+            temporaryMeeple = new TemporaryMeeple(player);
+        }
+        super.placeMeeple(player, position, temporaryMeeple, settings);
     }
 
     @Override
     public void removeMeeple() {
+        if (meeple != null && gridSpot != null) {
+            gridSpot.unregisterMeeple(meeple);
+        }
         meeple = null;
     }
 
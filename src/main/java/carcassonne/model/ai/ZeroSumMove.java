@@ -2,9 +2,12 @@ package carcassonne.model.ai;
 
 import static carcassonne.model.terrain.TerrainType.FIELDS;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import carcassonne.model.Player;
+import carcassonne.model.grid.Grid;
 import carcassonne.model.grid.GridDirection;
 import carcassonne.model.grid.GridPattern;
 import carcassonne.model.grid.GridSpot;
@@ -16,55 +19,74 @@ import carcassonne.settings.GameSettings;
  * @author Timur Saglam
  */
 public class ZeroSumMove extends AbstractCarcassonneMove {
+    private List<GridDirection> meeplePositions; // set while calculating the value, which happens in the super constructor
 
     /**
      * Creates the move. Does not check if the move is legal.
-     * @param tile is the tile placed in the move. Needs to be assigned to a {@link GridSpot}.
+     * @param tile is the tile placed in the move. Must not be placed, as the move places it when being applied.
+     * @param gridSpot is the {@link GridSpot} on which the tile is placed in the move.
      * @param meeplePosition is the position on which the meeple is placed on the tile.
      * @param actingPlayer is the player that is executing the move.
      * @param settings are the game settings.
      */
-    public ZeroSumMove(TemporaryTile tile, GridDirection meeplePosition, Player actingPlayer, GameSettings settings) {
-        super(tile, meeplePosition, actingPlayer, settings);
+    public ZeroSumMove(TemporaryTile tile, GridSpot gridSpot, GridDirection meeplePosition, Player actingPlayer, GameSettings settings) {
+        super(tile, gridSpot, meeplePosition, actingPlayer, settings);
     }
 
     /**
      * Creates the move without a meeple placement. Does not check if the move is legal.
-     * @param tile is the tile placed in the move. Needs to be assigned to a {@link GridSpot}.
+     * @param tile is the tile placed in the move. Must not be placed, as the move places it when being applied.
+     * @param gridSpot is the {@link GridSpot} on which the tile is placed in the move.
      * @param actingPlayer is the player that is executing the move.
      * @param settings are the game settings.
      */
-    public ZeroSumMove(TemporaryTile tile, Player actingPlayer, GameSettings settings) {
-        this(tile, null, actingPlayer, settings);
+    public ZeroSumMove(TemporaryTile tile, GridSpot gridSpot, Player actingPlayer, GameSettings settings) {
+        this(tile, gridSpot, null, actingPlayer, settings);
+    }
+
+    /**
+     * Returns the positions on which the acting player could place a meeple on the tile of this move. The positions are
+     * determined while the value of a move without meeple placement is calculated, as the tile is placed then.
+     * @return the list of positions, empty if the move involves a meeple placement or the player has no free meeples.
+     */
+    public List<GridDirection> getMeeplePositions() {
+        return meeplePositions;
     }
 
     @Override
     protected double calculateValue() {
-        gridSpot.removeTile();
-        Collection<GridPattern> patterns = gridSpot.getGrid().getLocalPatterns(gridSpot);
+        Grid grid = gridSpot.getGrid();
+        Collection<GridPattern> patterns = grid.getLocalPatterns(gridSpot);
         double scoreBefore = patterns.stream().mapToInt(this::zeroSumScore).sum();
         double fieldScoreBefore = patterns.stream().filter(it -> it.getType() == FIELDS).mapToInt(this::zeroSumScore).sum();
         gainedMeeples = calculateEmployedMeeples(patterns);
-        gridSpot.place(tile, gridSpot.getGrid().isAllowingEnclaves());
-        if (involvesMeeplePlacement()) {
-            tile.placeMeeple(actingPlayer, meeplePosition, new TemporaryMeeple(actingPlayer), settings);
-        }
-        patterns = gridSpot.getGrid().getLocalPatterns(gridSpot);
+        grid.apply(this);
+        patterns = grid.getLocalPatterns(gridSpot);
         double scoreAfter = patterns.stream().mapToInt(this::zeroSumScore).sum();
         double fieldScoreAfter = patterns.stream().filter(it -> it.getType() == FIELDS).mapToInt(this::zeroSumScore).sum();
         gainedMeeples -= calculateEmployedMeeples(patterns);
-        tile.removeMeeple();
+        meeplePositions = collectMeeplePositions(); // meeple rules depend on the patterns including the tile
+        grid.undo();
         fieldValue = fieldScoreAfter - fieldScoreBefore;
         return scoreAfter - scoreBefore;
     }
 
-    private int zeroSumScore(GridPattern pattern) {
-        int score = pattern.getScoreFor(actingPlayer); // acting players gain
-        for (Player dominantPlayer : pattern.getDominantPlayers()) {
-            if (dominantPlayer != actingPlayer) {
-                score -= pattern.getScoreFor(dominantPlayer); // other players gain = acting players loss
+    private List<GridDirection> collectMeeplePositions() {
+        List<GridDirection> positions = new ArrayList<>();
+        if (!involvesMeeplePlacement() && actingPlayer.hasFreeMeeples()) {
+            for (GridDirection position : GridDirection.values()) {
+                if (tile.hasMeepleSpot(position) && settings.getMeepleRule(tile.getTerrain(position))
+                        && tile.allowsPlacingMeeple(position, actingPlayer, settings)) {
+                    positions.add(position);
+                }
             }
         }
-        return score;
+        return positions;
+    }
+
+    private int zeroSumScore(GridPattern pattern) {
+        int score = pattern.getScoreFor(actingPlayer); // acting players gain
+        int otherPlayers = pattern.getDominantPlayerMask() & ~(1 << actingPlayer.getNumber());
+        return score - Integer.bitCount(otherPlayers) * pattern.getSplitScore(); // other players gain = acting players loss
     }
 }
@@ -0,0 +1,261 @@
+package carcassonne.model.grid;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.function.IntFunction;
+
+import carcassonne.model.Meeple;
+import carcassonne.model.Player;
+import carcassonne.model.tile.Tile;
+import carcassonne.model.tile.TileRotation;
+import carcassonne.model.tile.TileType;
+
+/**
+ * Immutable snapshot of the board of a grid, which are the placed tiles with their rotations and the placed meeples.
+ * Snapshots are stored in the same chunks as the grid, where every chunk is an immutable array of encoded spots. The
+ * chunks are kept in a persistent trie, so successive snapshots of a grid share all chunks and trie nodes that did not
+ * change in between. Creating a snapshot after a move therefore only copies the paths to the changed chunks. As
+ * snapshots never change, any number of threads can read them without synchronization. A snapshot can be turned back
+ * into a live {@link Grid}.
+ * @author Timur Saglam
+ */
+public final class BoardSnapshot {
+    private static final int FREE = 0;
+    private static final int TYPE_MASK = 0xFF; // tile type ordinal plus one, zero means free
+    private static final int ROTATION_SHIFT = 8;
+    private static final int ROTATION_MASK = 0x3;
+    private static final int MEEPLE_FLAG = 1 << 10;
+    private static final int POSITION_SHIFT = 11;
+    private static final int POSITION_MASK = 0xF;
+    private static final int OWNER_SHIFT = 15;
+    private static final int OWNER_MASK = 0x1F;
+    private static final int NO_OWNER = -1;
+
+    private final int width;
+    private final int height;
+    private final boolean allowEnclaves;
+    private final long hash;
+    private final int chunkRows;
+    private final ChunkTrie chunks; // encoded spots of all chunks with occupied spots, never modified
+
+    /**
+     * Creates a snapshot of the current board of a grid.
+     * @param previous is the previous snapshot of the grid whose unchanged chunks are shared, or null if there is none.
+     * @param grid is the grid.
+     * @param changedChunks are the keys of the chunks that changed since the previous snapshot.
+     */
+    BoardSnapshot(BoardSnapshot previous, Grid grid, Collection<Long> changedChunks) {
+        width = grid.getWidth();
+        height = grid.getHeight();
+        allowEnclaves = grid.isAllowingEnclaves();
+        hash = grid.getHash();
+        chunkRows = (height - 1 >> Grid.CHUNK_BITS) + 1;
+        ChunkTrie sharedChunks = previous == null ? ChunkTrie.empty(Math.multiplyExact((width - 1 >> Grid.CHUNK_BITS) + 1, chunkRows))
+                : previous.chunks;
+        for (long key : changedChunks) {
+            sharedChunks = sharedChunks.with(indexOf(key), encode(grid.getChunk(key)));
+        }
+        chunks = sharedChunks;
+    }
+
+    /**
+     * Getter for the Zobrist hash of the board at the time of the snapshot.
+     * @return the 64-bit hash.
+     * @see Grid#getHash()
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Getter for the grid height.
+     * @return the height
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the number of the player who owns the meeple on a specific spot.
+     * @param x is the x coordinate of the spot.
+     * @param y is the y coordinate of the spot.
+     * @return the player number or -1 if there is no meeple on the spot.
+     */
+    public int getMeepleOwner(int x, int y) {
+        int spot = spotAt(x, y);
+        return (spot & MEEPLE_FLAG) == 0 ? NO_OWNER : spot >>> OWNER_SHIFT & OWNER_MASK;
+    }
+
+    /**
+     * Returns the position of the meeple on the tile of a specific spot.
+     * @param x is the x coordinate of the spot.
+     * @param y is the y coordinate of the spot.
+     * @return the position or null if there is no meeple on the spot.
+     */
+    public GridDirection getMeeplePosition(int x, int y) {
+        int spot = spotAt(x, y);
+        return (spot & MEEPLE_FLAG) == 0 ? null : GridDirection.values()[spot >>> POSITION_SHIFT & POSITION_MASK];
+    }
+
+    /**
+     * Returns the rotation of the tile on a specific spot.
+     * @param x is the x coordinate of the spot.
+     * @param y is the y coordinate of the spot.
+     * @return the rotation or null if the spot is free.
+     */
+    public TileRotation getTileRotation(int x, int y) {
+        int spot = spotAt(x, y);
+        return spot == FREE ? null : TileRotation.values()[spot >>> ROTATION_SHIFT & ROTATION_MASK];
+    }
+
+    /**
+     * Returns the type of the tile on a specific spot.
+     * @param x is the x coordinate of the spot.
+     * @param y is the y coordinate of the spot.
+     * @return the type or null if the spot is free.
+     */
+    public TileType getTileType(int x, int y) {
+        int spot = spotAt(x, y);
+        return spot == FREE ? null : TileType.values()[(spot & TYPE_MASK) - 1];
+    }
+
+    /**
+     * Getter for the grid width.
+     * @return the width
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Checks whether a specific spot was occupied at the time of the snapshot.
+     * @param x is the x coordinate of the spot.
+     * @param y is the y coordinate of the spot.
+     * @return true if occupied.
+     */
+    public boolean isOccupied(int x, int y) {
+        return spotAt(x, y) != FREE;
+    }
+
+    /**
+     * Creates a new live grid with the board of this snapshot. The tiles are placed starting from the foundation, so that
+     * the grid is connected at any time. Tiles that are not connected to the foundation, which can exist on grids that
+     * allow enclaves or after forced placements, are placed afterwards in the same way. Restored meeples are detached
+     * from the players, which means that neither placing nor removing them changes the meeples of the players.
+     * @param players provides the players by their number, which is required to restore the meeples.
+     * @return the new grid.
+     */
+    public Grid toGrid(IntFunction<Player> players) {
+        Grid grid = new Grid(width, height, allowEnclaves);
+        restoreMeeple(grid.getFoundation(), players);
+        restoreConnectedTiles(grid, grid.getFoundation(), players);
+        chunks.forEach((encodedChunk, index) -> {
+            int chunkX = index / chunkRows << Grid.CHUNK_BITS;
+            int chunkY = index % chunkRows << Grid.CHUNK_BITS;
+            for (int spotIndex = 0; spotIndex < encodedChunk.length; spotIndex++) {
+                int x = chunkX | spotIndex & Grid.CHUNK_MASK;
+                int y = chunkY | spotIndex >>> Grid.CHUNK_BITS;
+                if (encodedChunk[spotIndex] != FREE && !grid.isOccupied(x, y)) { // not connected to the restored tiles
+                    GridSpot spot = restoreTile(grid, x, y, players);
+                    restoreConnectedTiles(grid, spot, players);
+                }
+            }
+        });
+        return grid;
+    }
+
+    /**
+     * Restores all tiles that are connected to a restored spot, breadth first.
+     */
+    private void restoreConnectedTiles(Grid grid, GridSpot start, IntFunction<Player> players) {
+        Deque<GridSpot> queue = new ArrayDeque<>();
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            GridSpot spot = queue.poll();
+            for (GridDirection direction : GridDirection.directNeighbors()) {
+                int x = spot.getX() + direction.getX();
+                int y = spot.getY() + direction.getY();
+                if (x >= 0 && x < width && y >= 0 && y < height && isOccupied(x, y) && grid.getSpot(x, y).isFree()) {
+                    queue.add(restoreTile(grid, x, y, players));
+                }
+            }
+        }
+    }
+
+    private GridSpot restoreTile(Grid grid, int x, int y, IntFunction<Player> players) {
+        GridSpot spot = grid.getSpot(x, y);
+        Tile tile = new Tile(getTileType(x, y));
+        tile.rotateTo(getTileRotation(x, y));
+        spot.forcePlacement(tile);
+        restoreMeeple(spot, players);
+        return spot;
+    }
+
+    private void restoreMeeple(GridSpot spot, IntFunction<Player> players) {
+        int owner = getMeepleOwner(spot.getX(), spot.getY());
+        if (owner != NO_OWNER) {
+            Meeple meeple = new DetachedMeeple(players.apply(owner));
+            spot.getTile().forceMeeplePlacement(meeple, getMeeplePosition(spot.getX(), spot.getY()));
+        }
+    }
+
+    private int spotAt(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            throw new IllegalArgumentException("Coordinates are out of the snapshot: " + x + ", " + y);
+        }
+        int[] encodedChunk = chunks.get(indexOf(Grid.chunkKey(x, y)));
+        return encodedChunk == null ? FREE : encodedChunk[Grid.chunkIndex(x, y)];
+    }
+
+    /**
+     * Returns the dense index of a chunk in the trie, which orders the chunks column by column.
+     */
+    private int indexOf(long chunkKey) {
+        int chunkX = (int) (chunkKey >> Integer.SIZE);
+        int chunkY = (int) chunkKey;
+        return chunkX * chunkRows + chunkY;
+    }
+
+    /**
+     * Encodes the spots of a chunk of the grid.
+     * @return the encoded spots or null if the chunk does not contain any occupied spots.
+     */
+    private static int[] encode(GridSpot[] chunk) {
+        if (chunk == null) {
+            return null;
+        }
+        int[] encodedChunk = new int[chunk.length];
+        boolean occupied = false;
+        for (int index = 0; index < encodedChunk.length; index++) {
+            if (chunk[index] != null && chunk[index].isOccupied()) {
+                encodedChunk[index] = encode(chunk[index].getTile());
+                occupied = true;
+            }
+        }
+        return occupied ? encodedChunk : null;
+    }
+
+    private static int encode(Tile tile) {
+        int spot = tile.getType().ordinal() + 1 | tile.getRotation().ordinal() << ROTATION_SHIFT;
+        Meeple meeple = tile.getMeeple();
+        if (meeple != null) {
+            spot |= MEEPLE_FLAG | meeple.getPosition().ordinal() << POSITION_SHIFT | meeple.getOwner().getNumber() << OWNER_SHIFT;
+        }
+        return spot;
+    }
+
+    /**
+     * Meeple of a restored grid, which is not part of the meeples of its owner.
+     */
+    private static class DetachedMeeple extends Meeple {
+        DetachedMeeple(Player owner) {
+            super(owner);
+        }
+
+        @Override
+        public void removePlacement() {
+            setLocation(null); // do not return to the owner
+        }
+    }
+}
@@ -1,12 +1,21 @@
 package carcassonne.model.grid;
 
+import java.util.List;
+
 import carcassonne.model.terrain.TerrainType;
 
 /**
+ * Grid pattern for castles and roads. It is a view on a component of the {@link PatternEngine} of the grid, which
+ * captures the state of the component at the time of the creation of the pattern.
  * @author Timur Saglam
  */
 public class CastleAndRoadPattern extends GridPattern { // TODO (MEDIUM) [STYLE] use subclasses to make constructors generic (factory?)
     private static final int UNFINISHED_CASTLE_DIVISOR = 2;
+    private static final int CASTLE_MULTIPLIER = 2;
+    private final PatternEngine engine;
+    private final int component;
+    private final int size;
+    private final int emblems;
 
     /**
      * Public constructor for creating road and monastery patterns.
@@ -15,39 +24,50 @@ public class CastleAndRoadPattern extends GridPattern { // TODO (MEDIUM) [STYLE]
      * @param patternType is the type of the pattern.
      */
     public CastleAndRoadPattern(GridSpot startingSpot, GridDirection startingDirection, TerrainType patternType) {
-        super(patternType, patternType == TerrainType.CASTLE ? 2 : 1);
+        super(patternType, patternType == TerrainType.CASTLE ? CASTLE_MULTIPLIER : 1);
         checkArgs(startingSpot, startingDirection, patternType);
-        startingSpot.setTag(startingDirection, this); // initial tag
-        add(startingSpot); // initial tile
-        complete = buildPattern(startingSpot, startingDirection); // recursive algorithm.
+        engine = startingSpot.getGrid().getPatternEngine();
+        int node = engine.nodeAt(startingSpot, startingDirection);
+        if (node < 0) {
+            throw new IllegalArgumentException("There is no " + patternType + " on " + startingDirection + " of " + startingSpot);
+        }
+        component = engine.find(node);
+        setOrigin(startingSpot, startingDirection, component);
+        size = engine.getSegments(component);
+        emblems = engine.getEmblems(component);
+        complete = engine.isComplete(component);
+        engine.forEachMeeple(component, this::addMeeple);
     }
 
     @Override
     public int getPatternScore() {
-        int baseScore = super.getPatternScore();
-        if (patternType == TerrainType.CASTLE) {
-            int emblems = (int) containedSpots.stream().filter(it -> it.getTile().hasEmblem()).count(); // count emblems
-            baseScore += emblems * scoreMultiplier;
-            if (!complete) {
-                baseScore /= UNFINISHED_CASTLE_DIVISOR;
-            }
-        }
-        return baseScore;
+        return calculateScore(patternType, size, emblems, complete);
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    protected List<GridSpot> getContainedSpots() {
+        return engine.getSpots(component);
     }
 
-    private boolean buildPattern(GridSpot spot, GridDirection startingPoint) {
-        boolean isClosed = true;
-        for (GridDirection direction : GridDirection.directNeighbors()) { // for every side
-            if (spot.getTile().hasConnection(startingPoint, direction)) { // if is connected side
-                GridSpot neighbor = spot.getGrid().getNeighbor(spot, direction); // get the neighbor
-                if (neighbor == null) { // if it has no neighbor
-                    isClosed = false; // open side, can't be finished pattern.
-                } else { // continue on neighbors
-                    isClosed &= checkNeighbor(spot, neighbor, direction);
-                }
-            }
+    /**
+     * Calculates the score of a castle or road.
+     * @param patternType is the type of the pattern, either castle or road.
+     * @param size is the number of tiles of the pattern.
+     * @param emblems is the number of emblems of the pattern.
+     * @param complete determines whether the pattern is complete.
+     * @return the score of the pattern.
+     */
+    static int calculateScore(TerrainType patternType, int size, int emblems, boolean complete) {
+        if (patternType != TerrainType.CASTLE) {
+            return size;
         }
-        return isClosed;
+        int baseScore = (size + emblems) * CASTLE_MULTIPLIER;
+        return complete ? baseScore : baseScore / UNFINISHED_CASTLE_DIVISOR;
     }
 
     private void checkArgs(GridSpot spot, GridDirection direction, TerrainType terrain) {
@@ -56,15 +76,4 @@ public class CastleAndRoadPattern extends GridPattern { // TODO (MEDIUM) [STYLE]
         }
         checkArgs(spot, direction);
     }
-
-    private boolean checkNeighbor(GridSpot startingTile, GridSpot neighbor, GridDirection direction) {
-        GridDirection oppositeDirection = direction.opposite();
-        if (!neighbor.isIndirectlyTaggedBy(oppositeDirection, this)) { // if neighbor not visited yet
-            startingTile.setTag(direction, this);
-            neighbor.setTag(oppositeDirection, this); // mark as visited
-            add(neighbor); // add to pattern
-            return buildPattern(neighbor, oppositeDirection);
-        }
-        return true;
-    }
 }
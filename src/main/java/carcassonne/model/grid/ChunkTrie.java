@@ -0,0 +1,96 @@
+package carcassonne.model.grid;
+
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Persistent trie of the encoded chunks of a board snapshot. The chunks are addressed by a dense index of their chunk
+ * coordinates, where every level of the trie consumes five bits of the index. Tries are immutable: changing a chunk
+ * copies only the nodes on the path to that chunk and shares all other nodes with the previous trie.
+ * @author Timur Saglam
+ */
+final class ChunkTrie {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private final Object[] root; // inner nodes hold child nodes, nodes on the last level hold the chunks
+    private final int shift; // shift of the index bits of the root level
+
+    private ChunkTrie(Object[] root, int shift) {
+        this.root = root;
+        this.shift = shift;
+    }
+
+    /**
+     * Creates an empty trie.
+     * @param capacity is the number of addressable chunks.
+     * @return the empty trie.
+     */
+    static ChunkTrie empty(int capacity) {
+        int shift = 0;
+        while (shift + BITS < Integer.SIZE - 1 && 1L << shift + BITS < capacity) {
+            shift += BITS;
+        }
+        return new ChunkTrie(null, shift);
+    }
+
+    /**
+     * Returns the chunk with a specific index.
+     * @param index is the index of the chunk.
+     * @return the encoded chunk or null if there is none.
+     */
+    int[] get(int index) {
+        Object[] node = root;
+        for (int level = shift; level > 0 && node != null; level -= BITS) {
+            node = (Object[]) node[index >>> level & MASK];
+        }
+        return node == null ? null : (int[]) node[index & MASK];
+    }
+
+    /**
+     * Calls an action for every chunk of the trie, in the order of their indices.
+     * @param action is the action to call with the chunk and its index.
+     */
+    void forEach(ObjIntConsumer<int[]> action) {
+        forEach(root, shift, 0, action);
+    }
+
+    /**
+     * Returns a trie where a chunk is replaced, which shares all unchanged nodes with this trie.
+     * @param index is the index of the chunk.
+     * @param chunk is the new encoded chunk or null to remove the chunk.
+     * @return the new trie.
+     */
+    ChunkTrie with(int index, int[] chunk) {
+        return new ChunkTrie(with(root, shift, index, chunk), shift);
+    }
+
+    private static void forEach(Object[] node, int level, int prefix, ObjIntConsumer<int[]> action) {
+        if (node != null) {
+            for (int slot = 0; slot < WIDTH; slot++) {
+                int index = prefix | slot << level;
+                if (level == 0 && node[slot] != null) {
+                    action.accept((int[]) node[slot], index);
+                } else if (level > 0) {
+                    forEach((Object[]) node[slot], level - BITS, index, action);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies a node with a replaced chunk below it.
+     * @return the copied node or null if it does not contain any chunks.
+     */
+    private static Object[] with(Object[] node, int level, int index, Object chunk) {
+        Object[] copy = node == null ? new Object[WIDTH] : node.clone();
+        int slot = index >>> level & MASK;
+        copy[slot] = level == 0 ? chunk : with((Object[]) copy[slot], level - BITS, index, chunk);
+        for (Object child : copy) {
+            if (child != null) {
+                return copy;
+            }
+        }
+        return null; // prune empty nodes
+    }
+}
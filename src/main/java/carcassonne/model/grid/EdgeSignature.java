@@ -0,0 +1,85 @@
+package carcassonne.model.grid;
+
+import carcassonne.model.terrain.TerrainType;
+
+/**
+ * Encoding of the terrain on the four edges of a tile or a free spot into a single integer. Every edge is encoded in four
+ * bits, which hold the ordinal of the terrain type plus one. The signature of a tile constrains all four edges, while the
+ * signature of a free spot only constrains the edges towards occupied neighbors and leaves the other edges zero. A tile
+ * fits on a spot if the tile signature matches the spot signature on every constrained edge.
+ * @author Timur Saglam
+ */
+public final class EdgeSignature {
+    /**
+     * Signature without any constrained edges.
+     */
+    public static final int UNCONSTRAINED = 0;
+    private static final int EDGE_BITS = 4;
+    private static final int EDGE_MASK = (1 << EDGE_BITS) - 1;
+    private static final int EDGES = 4;
+
+    private EdgeSignature() {
+        // private constructor ensures non-instantiability!
+    }
+
+    /**
+     * Encodes the terrain on a single edge.
+     * @param edge is the edge, which must be one of the direct neighbor directions.
+     * @param terrain is the terrain on that edge.
+     * @return the signature that only constrains the edge.
+     */
+    public static int of(GridDirection edge, TerrainType terrain) {
+        return terrain.ordinal() + 1 << shiftOf(edge);
+    }
+
+    /**
+     * Checks whether a tile fits on a spot regarding the terrain of their edges.
+     * @param spotSignature is the signature of the spot, which may leave edges unconstrained.
+     * @param tileSignature is the signature of the tile.
+     * @return true if the tile matches every constrained edge of the spot.
+     */
+    public static boolean matches(int spotSignature, int tileSignature) {
+        return (tileSignature & maskOf(spotSignature)) == spotSignature;
+    }
+
+    /**
+     * Returns the signature of a tile that only keeps a subset of its edges.
+     * @param tileSignature is the signature of the tile.
+     * @param edges is the bit mask of the edges to keep, indexed by the ordinals of the direct neighbor directions.
+     * @return the reduced signature.
+     */
+    public static int restrict(int tileSignature, int edges) {
+        int mask = 0;
+        for (int edge = 0; edge < EDGES; edge++) {
+            if ((edges & 1 << edge) != 0) {
+                mask |= EDGE_MASK << edge * EDGE_BITS;
+            }
+        }
+        return tileSignature & mask;
+    }
+
+    /**
+     * Returns the number of edge subsets, which are the valid arguments of {@link #restrict(int, int)}.
+     * @return the number of subsets of the four edges.
+     */
+    public static int edgeSubsets() {
+        return 1 << EDGES;
+    }
+
+    private static int maskOf(int signature) {
+        int mask = 0;
+        for (int edge = 0; edge < EDGES; edge++) {
+            if ((signature >>> edge * EDGE_BITS & EDGE_MASK) != 0) {
+                mask |= EDGE_MASK << edge * EDGE_BITS;
+            }
+        }
+        return mask;
+    }
+
+    private static int shiftOf(GridDirection edge) {
+        if (edge.ordinal() >= EDGES) {
+            throw new IllegalArgumentException("Edge signatures only cover the direct neighbors: " + edge);
+        }
+        return edge.ordinal() * EDGE_BITS;
+    }
+}
@@ -1,26 +1,22 @@
 package carcassonne.model.grid;
 
-import static carcassonne.model.grid.GridDirection.CENTER;
-import static carcassonne.model.grid.GridDirection.NORTH_WEST;
-import static carcassonne.model.grid.GridDirection.WEST;
-import static carcassonne.model.terrain.RotationDirection.LEFT;
-import static carcassonne.model.terrain.RotationDirection.RIGHT;
-import static carcassonne.model.terrain.TerrainType.CASTLE;
 import static carcassonne.model.terrain.TerrainType.FIELDS;
 
-import java.util.LinkedList;
 import java.util.List;
 
-import carcassonne.model.tile.Tile;
-
 /**
- * Grid pattern for fields.
+ * Grid pattern for fields. It is a view on a field component of the {@link PatternEngine} of the grid, which captures
+ * the state of the component at the time of the creation of the pattern. The size of a field is the number of its field
+ * segments, which means every tile counts once for each separate field of the tile that belongs to the pattern. Unlike
+ * the former tag-based traversal, a tile is not counted again when the field enters it through another position.
  * @author Timur Saglam
  */
 public class FieldsPattern extends GridPattern {
     private static final int POINTS_PER_CASTLE = 3;
-    private final List<CastleAndRoadPattern> adjacentCastles;
-    private final Grid grid;
+    private final int adjacentCastles; // number of the complete adjacent castles
+    private final PatternEngine engine;
+    private final int component;
+    private final int size;
 
     /**
      * Creates a new field pattern.
@@ -28,131 +24,58 @@ public class FieldsPattern extends GridPattern {
      * @param startingDirection is the position on the spot where the pattern starts.
      */
     public FieldsPattern(GridSpot startingSpot, GridDirection startingDirection) {
+        this(startingSpot, startingDirection, null);
+    }
+
+    /**
+     * Creates a new field pattern that counts its adjacent castles with stamps of the caller, which allows creating field
+     * patterns concurrently.
+     * @param startingSpot is the {@link GridSpot} where the pattern starts.
+     * @param startingDirection is the position on the spot where the pattern starts.
+     * @param castleStamps are the castle stamps of the caller, or null to use the stamps of the pattern engine.
+     * @see PatternEngine#countCompleteAdjacentCastles(int, int[])
+     */
+    FieldsPattern(GridSpot startingSpot, GridDirection startingDirection, int[] castleStamps) {
         super(FIELDS, POINTS_PER_CASTLE);
         checkArgs(startingSpot, startingDirection);
-        grid = startingSpot.getGrid();
-        adjacentCastles = new LinkedList<>();
-        checkArgs(startingSpot, startingDirection);
-        startingSpot.setTag(startingDirection, this); // initial tag, is needed for adding meeples!
-        add(startingSpot); // initial tile
-        buildPattern(startingSpot, startingDirection);
-        adjacentCastles.forEach(CastleAndRoadPattern::removeOwnTags); // also remove the tile tags of the marked adjacentCastles
+        engine = startingSpot.getGrid().getPatternEngine();
+        int node = engine.nodeAt(startingSpot, startingDirection);
+        if (node < 0 || startingSpot.getTile().getTerrain(startingDirection) != FIELDS) {
+            throw new IllegalArgumentException("There is no field on " + startingDirection + " of " + startingSpot);
+        }
+        component = engine.find(node);
+        setOrigin(startingSpot, startingDirection, component);
+        size = engine.getSegments(component);
+        adjacentCastles = castleStamps == null ? engine.countCompleteAdjacentCastles(component)
+                : engine.countCompleteAdjacentCastles(component, castleStamps);
+        engine.forEachMeeple(component, this::addMeeple);
     }
 
     @Override
     public int getPatternScore() {
-        return adjacentCastles.size() * scoreMultiplier;
-    }
-
-    // adds a grid direction to a list if it has no castle terrain at that direction on the tile.
-    private void addIfNotCastle(List<GridDirection> results, Tile tile, GridDirection next) {
-        if (tile.getTerrain(next) != CASTLE) {
-            results.add(next);
-        }
-    }
-
-    private void buildPattern(GridSpot spot, GridDirection startingPoint) {
-        List<GridDirection> fieldPositions = getFieldPositions(spot.getTile(), startingPoint);
-        for (GridDirection position : fieldPositions) { // for every position of this field on this tile
-            countAdjacentCastles(spot, position); // count castles to determine pattern size
-            spot.setTag(position, this); // mark as visited
-        }
-        fieldPositions.forEach(it -> checkNeighbors(spot, it)); // check every possible neighbor
-    }
-
-    private void checkNeighbors(GridSpot spot, GridDirection position) {
-        for (GridDirection connectionDirection : getFieldConnections(position, spot.getTile())) { // ∀ connection points
-            GridSpot neighbor = grid.getNeighbor(spot, connectionDirection); // get the neighbor
-            GridDirection oppositeDirection = getFieldOpposite(position, connectionDirection); // get the connecting position on neighbor
-            if (neighbor != null && neighbor.isUntagged(oppositeDirection)) { // if not visited
-                neighbor.setTag(oppositeDirection, this); // mark as visited
-                add(neighbor); // add to pattern
-                buildPattern(neighbor, oppositeDirection); // continue building recursively
-            }
-        }
-    }
-
-    // Counts neighboring adjacent castles for a position on at tile. Finds all castle patterns on the tile that are
-    // directly adjacent to the field position and saves the complete ones.
-    private void countAdjacentCastles(GridSpot spot, GridDirection position) {
-        for (GridDirection neighbor : getAdjacentPositions(position)) {
-            if (spot.getTile().getTerrain(neighbor) == CASTLE && isUntagged(spot, neighbor)) { // if is unvisited castle
-                CastleAndRoadPattern castle = new CastleAndRoadPattern(spot, neighbor, CASTLE);
-                if (castle.isComplete()) { // if castle is closed (pattern check)
-                    adjacentCastles.add(castle); // remember pattern to count points
-                } else {
-                    castle.removeOwnTags(); // IMPORTANT, remove tags if not used any further!
-                }
-            }
-        }
+        return calculateScore(adjacentCastles);
     }
 
     /**
-     * Returns every adjacent position on a tile for a specific initial position.
+     * Returns the number of field segments of this field. The score of a field does not depend on its size.
+     * @return the number of field segments.
      */
-    private List<GridDirection> getAdjacentPositions(GridDirection position) {
-        List<GridDirection> neighbors = new LinkedList<>();
-        if (position.isSmallerOrEquals(WEST)) {
-            neighbors.add(CENTER); // the classic direction are adjacent to the middle
-        }
-        if (position.isSmallerOrEquals(NORTH_WEST)) { // everything except the middle has these two neighbors:
-            neighbors.add(position.nextDirectionTo(LEFT)); // counterclockwise adjacent position
-            neighbors.add(position.nextDirectionTo(RIGHT)); // clockwise adjacent position
-        } else {
-            neighbors.addAll(GridDirection.directNeighbors()); // the middle has the classic directions as neighbors
-        }
-        return neighbors;
+    @Override
+    public int getSize() {
+        return size;
+    }
 
+    @Override
+    protected List<GridSpot> getContainedSpots() {
+        return engine.getSpots(component);
     }
 
     /**
-     * Gives for a specific tile and a specific position on that tile the directions in which the field connects to. If the
-     * tile has not the terrain field on this position the result list is empty.
+     * Calculates the score of a field.
+     * @param adjacentCastles is the number of complete castles adjacent to the field.
+     * @return the score of the field.
      */
-    private List<GridDirection> getFieldConnections(GridDirection position, Tile tile) {
-        List<GridDirection> results = new LinkedList<>();
-        if (tile.getTerrain(position) == FIELDS) {
-            if (position.isSmallerOrEquals(WEST)) {
-                results.add(position); // for simple directions just return themselves.
-            } else if (position.isSmallerOrEquals(NORTH_WEST)) {
-                addIfNotCastle(results, tile, position.nextDirectionTo(LEFT)); // for edges, it depends on whether the neighboring
-                addIfNotCastle(results, tile, position.nextDirectionTo(RIGHT)); // directions have castle terrain or not
-            }
-        }
-        return results;
+    static int calculateScore(int adjacentCastles) {
+        return adjacentCastles * POINTS_PER_CASTLE;
     }
-
-    // Returns the position on the grid of a neighboring tile on a direction which is directly in contact with a specific
-    // position of the first tile.
-    private GridDirection getFieldOpposite(GridDirection position, GridDirection neighborDirection) {
-        if (position.isSmallerOrEquals(WEST)) {
-            return position.opposite(); // top, right, bottom, left are simply inverted
-        }
-        if (position.isSmallerOrEquals(NORTH_WEST)) {
-            if (neighborDirection.isLeftOf(position)) { // neighbor to the left of the corner
-                return position.opposite().nextDirectionTo(LEFT).nextDirectionTo(LEFT); // return opposite and two to the right
-            }
-            return position.opposite().nextDirectionTo(RIGHT).nextDirectionTo(RIGHT); // return opposite and two to the left
-        }
-        return position; // middle stays middle
-    }
-
-    private List<GridDirection> getFieldPositions(Tile tile, GridDirection startingPoint) {
-        List<GridDirection> fieldPositions = new LinkedList<>();
-        for (GridDirection position : GridDirection.values()) { // for every position on tile
-            if (tile.hasConnection(startingPoint, position)) {
-                fieldPositions.add(position);
-            }
-        }
-        return fieldPositions;
-    }
-
-    private boolean isUntagged(GridSpot spot, GridDirection position) {
-        boolean tagged = false;
-        for (CastleAndRoadPattern castle : adjacentCastles) {
-            tagged |= spot.isIndirectlyTaggedBy(position, castle);
-        }
-        return !tagged;
-    }
-
 }
@@ -0,0 +1,98 @@
+package carcassonne.model.grid;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of the frontier spots of a grid by their edge signatures. Spots with the same required terrain on their edges
+ * share a bucket, so the spots that fit a tile are found with one bucket lookup per subset of its edges instead of
+ * checking every spot of the frontier.
+ * @author Timur Saglam
+ */
+final class FrontierIndex {
+    private final Map<Integer, Set<GridSpot>> buckets; // frontier spots by their signature
+    private final Map<GridSpot, Integer> signatures; // signature of every indexed spot
+
+    /**
+     * Creates an empty index.
+     */
+    FrontierIndex() {
+        buckets = new HashMap<>();
+        signatures = new HashMap<>();
+    }
+
+    /**
+     * Counts the frontier spots that fit a tile regarding the terrain on its edges.
+     * @param tileSignature is the edge signature of the tile.
+     * @return the number of fitting spots.
+     */
+    int countMatchingSpots(int tileSignature) {
+        int count = 0;
+        for (int edges = 1; edges < EdgeSignature.edgeSubsets(); edges++) {
+            Set<GridSpot> bucket = buckets.get(EdgeSignature.restrict(tileSignature, edges));
+            if (bucket != null) {
+                count += bucket.size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the frontier spots that fit a tile regarding the terrain on its edges.
+     * @param tileSignature is the edge signature of the tile.
+     * @return the list of fitting spots, ordered like the frontier of the grid.
+     */
+    List<GridSpot> getMatchingSpots(int tileSignature) {
+        List<GridSpot> spots = new ArrayList<>();
+        for (int edges = 1; edges < EdgeSignature.edgeSubsets(); edges++) {
+            Set<GridSpot> bucket = buckets.get(EdgeSignature.restrict(tileSignature, edges));
+            if (bucket != null) {
+                spots.addAll(bucket);
+            }
+        }
+        spots.sort(Grid.COLUMN_ORDER);
+        return spots;
+    }
+
+    /**
+     * Returns the edge signature of a frontier spot.
+     * @param spot is the spot.
+     * @return the signature, or {@link EdgeSignature#UNCONSTRAINED} if the spot is not on the frontier.
+     */
+    int getSignature(GridSpot spot) {
+        return signatures.getOrDefault(spot, EdgeSignature.UNCONSTRAINED);
+    }
+
+    /**
+     * Removes a spot from the index, if it is indexed.
+     * @param spot is the spot to remove.
+     */
+    void remove(GridSpot spot) {
+        Integer signature = signatures.remove(spot);
+        if (signature != null) {
+            Set<GridSpot> bucket = buckets.get(signature);
+            bucket.remove(spot);
+            if (bucket.isEmpty()) {
+                buckets.remove(signature);
+            }
+        }
+    }
+
+    /**
+     * Adds a frontier spot to the index or moves it to the bucket of its new signature.
+     * @param spot is the spot to index.
+     * @param signature is the current edge signature of the spot.
+     */
+    void update(GridSpot spot, int signature) {
+        Integer previous = signatures.get(spot);
+        if (previous == null || previous != signature) {
+            remove(spot);
+            signatures.put(spot, signature);
+            buckets.computeIfAbsent(signature, key -> new HashSet<>()).add(spot);
+        }
+    }
+}
@@ -1,31 +1,74 @@
 package carcassonne.model.grid;
 
+import java.awt.Rectangle;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
+import carcassonne.model.Meeple;
 import carcassonne.model.Player;
 import carcassonne.model.ai.AbstractCarcassonneMove;
 import carcassonne.model.ai.TemporaryTile;
 import carcassonne.model.ai.ZeroSumMove;
+import carcassonne.model.terrain.TerrainType;
 import carcassonne.model.tile.Tile;
 import carcassonne.model.tile.TileRotation;
 import carcassonne.model.tile.TileType;
 import carcassonne.settings.GameSettings;
 
 /**
- * The playing grid class.
+ * The playing grid class. The spots of the grid are stored sparsely in chunks of 32x32 spots, which are only allocated
+ * when a spot in them is accessed. Spots that were never accessed are free.
  * @author Timur Saglam
  */
 public class Grid {
     private static final TileType FOUNDATION_TYPE = TileType.CastleWallRoad;
+    static final int CHUNK_BITS = 5; // chunks of 32x32 spots
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    static final int CHUNK_AREA = CHUNK_SIZE * CHUNK_SIZE;
+    private static final int INITIAL_STACK_SIZE = 64;
+    private static final Comparator<GridSpot> ROW_ORDER = Comparator.comparingInt(GridSpot::getY).thenComparingInt(GridSpot::getX);
+    static final Comparator<GridSpot> COLUMN_ORDER = Comparator.comparingInt(GridSpot::getX).thenComparingInt(GridSpot::getY);
+    private static final List<GridDirection> DIRECT_NEIGHBORS = GridDirection.directNeighbors();
+    private static final List<GridDirection> RING = List.of(GridDirection.NORTH, GridDirection.NORTH_EAST, GridDirection.EAST,
+            GridDirection.SOUTH_EAST, GridDirection.SOUTH, GridDirection.SOUTH_WEST, GridDirection.WEST, GridDirection.NORTH_WEST);
     private final int width;
     private final int height;
-    private final GridSpot[][] spots;
+    private final Map<Long, GridSpot[]> chunks; // lazily allocated chunks of spots, keyed by the chunk coordinates
+    private final Set<GridSpot> frontier; // free spots with at least one occupied direct neighbor
+    private final FrontierIndex frontierIndex; // frontier spots by their edge signatures
+    private final PlaceabilityCache placeabilityCache;
+    private final OccupancyCounter occupancy;
+    private final PatternEngine patternEngine;
     private GridSpot foundation;
     private final boolean allowEnclaves;
+    private int tagStamp; // last issued tag stamp
+    private int traversalStamp; // first tag stamp of the current pattern traversal, older tags are stale
+    private final Set<GridSpot> enclosingPlacements; // placements that violate the preconditions of the local enclave check
+    private boolean exactEnclaveCheck; // permanent fallback to flood fills after tiles were removed out of order
+    private final Map<Long, int[]> visitStamps; // chunked visit stamps of the boundary search, stale stamps mean unvisited
+    private int visitStamp; // stamp of the current boundary search
+    private long[] boundaryStack; // reusable stack of packed coordinates for the boundary search
+    private final Deque<AbstractCarcassonneMove> appliedMoves; // journal of the moves that can be undone
+    private long hash; // Zobrist hash of the placed tiles and meeples
+    private BoardSnapshot snapshot; // last snapshot, shares its unchanged chunks with the next one
+    private final Set<Long> changedChunks; // chunks that changed since the last snapshot
+    private final List<PatternListener> patternListeners;
+    private final ScoreLedger scoreLedger;
 
     /**
      * Basic constructor
@@ -37,32 +80,142 @@ public class Grid {
         this.width = width;
         this.height = height;
         this.allowEnclaves = allowEnclaves;
-        spots = new GridSpot[width][height];
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                spots[x][y] = new GridSpot(this, x, y);
-            }
-        }
+        chunks = new HashMap<>();
+        enclosingPlacements = new HashSet<>();
+        appliedMoves = new ArrayDeque<>();
+        visitStamps = new HashMap<>();
+        boundaryStack = new long[INITIAL_STACK_SIZE];
+        changedChunks = new HashSet<>();
+        patternListeners = new ArrayList<>();
+        frontier = new TreeSet<>(COLUMN_ORDER);
+        frontierIndex = new FrontierIndex();
+        placeabilityCache = new PlaceabilityCache(this);
+        occupancy = new OccupancyCounter(width, height);
+        patternEngine = new PatternEngine(this);
+        scoreLedger = new ScoreLedger(this);
+        startTraversal();
         placeFoundation(FOUNDATION_TYPE);
     }
 
+    /**
+     * Registers a listener that is notified about the lifecycle of the patterns of this grid.
+     * @param listener is the listener to add.
+     */
+    public void addPatternListener(PatternListener listener) {
+        patternListeners.add(listener);
+    }
+
+    /**
+     * Temporarily applies a move to the grid by placing its tile and, if the move involves it, its meeple. The pattern
+     * merges are journaled by the grid, which allows restoring the exact previous state with {@link Grid#undo()}. The
+     * score delta of the move for the acting player is its value. Applying and undoing moves does not allocate tiles or
+     * meeples, as the move reuses its temporary tile, and neither updates the projected scores nor publishes pattern
+     * events.
+     * @param move is the move to apply, which was created for this grid.
+     * @throws IllegalArgumentException if the move was not created for this grid or is not legal in the current state.
+     * @throws IllegalStateException if the move is already applied.
+     */
+    public void apply(AbstractCarcassonneMove move) {
+        GridSpot spot = move.getGridSpot();
+        TemporaryTile tile = move.getTemporaryTile();
+        if (spot.getGrid() != this) {
+            throw new IllegalArgumentException("Move was not created for this grid: " + move);
+        }
+        if (tile.isPlaced()) {
+            throw new IllegalStateException("Move is already applied: " + move);
+        }
+        if (!spot.place(tile, allowEnclaves)) {
+            throw new IllegalArgumentException("Move is not legal in the current state of the grid: " + move);
+        }
+        if (move.involvesMeeplePlacement()) {
+            tile.placeMeeple(move.getActingPlayer(), move.getMeeplePosition(), move.getSettings());
+        }
+        appliedMoves.push(move);
+    }
+
+    /**
+     * Counts the free spots of the grid.
+     * @return the number of free spots.
+     */
+    public long countFreeSpots() {
+        return (long) width * height - occupancy.getOccupiedSpots();
+    }
+
+    /**
+     * Counts the occupied spots of the grid.
+     * @return the number of placed tiles.
+     */
+    public int countOccupiedSpots() {
+        return occupancy.getOccupiedSpots();
+    }
+
+    /**
+     * Counts the occupied spots in a column of the grid.
+     * @param x is the x coordinate of the column.
+     * @return the number of placed tiles in the column.
+     * @throws IllegalArgumentException if the column is out of grid.
+     */
+    public int countOccupiedSpotsInColumn(int x) {
+        checkParameters(x, 0);
+        return occupancy.getColumnCount(x);
+    }
+
+    /**
+     * Counts the occupied spots in a row of the grid.
+     * @param y is the y coordinate of the row.
+     * @return the number of placed tiles in the row.
+     * @throws IllegalArgumentException if the row is out of grid.
+     */
+    public int countOccupiedSpotsInRow(int y) {
+        checkParameters(0, y);
+        return occupancy.getRowCount(y);
+    }
+
     /**
      * Returns list of all patterns on the grid.
      * @return the list of patterns.
      */
     public List<GridPattern> getAllPatterns() {
         List<GridPattern> patterns = new LinkedList<>();
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                if (spots[x][y].isOccupied()) {
-                    patterns.addAll(spots[x][y].createPatternList());
-                }
-            }
+        Set<Integer> visitedComponents = new HashSet<>();
+        startTraversal();
+        List<GridSpot> occupiedSpots = getOccupiedSpots();
+        occupiedSpots.sort(ROW_ORDER);
+        for (GridSpot spot : occupiedSpots) {
+            patterns.addAll(spot.createPatternList(visitedComponents));
+        }
+        return patterns;
+    }
+
+    /**
+     * Returns list of all patterns on the grid that are occupied by at least one meeple, which are the only patterns that
+     * are scored at the end of a game. The patterns are created and evaluated in parallel for rectangular regions of the
+     * grid, which only read the pattern engine and do not tag any spots. Patterns that cross the borders of regions are
+     * merged by their pattern engine component.
+     * @return the list of occupied patterns, ordered like the spots of their first meeple.
+     */
+    public List<GridPattern> getOccupiedPatterns() {
+        Rectangle box = occupancy.getBoundingBox();
+        if (box == null) {
+            return new ArrayList<>();
         }
-        patterns.forEach(GridPattern::removeTileTags);  // IMPORTANT
+        OccupiedPatternScan scan = new OccupiedPatternScan(this, box.x >> CHUNK_BITS, box.y >> CHUNK_BITS, (box.x + box.width - 1) >> CHUNK_BITS,
+                (box.y + box.height - 1) >> CHUNK_BITS);
+        List<OccupiedPatternScan.Occupation> occupations = new ArrayList<>(ForkJoinPool.commonPool().invoke(scan).values());
+        occupations.sort(Comparator.comparingLong(OccupiedPatternScan.Occupation::order));
+        List<GridPattern> patterns = new ArrayList<>(occupations.size());
+        occupations.forEach(it -> patterns.add(it.pattern()));
         return patterns;
     }
 
+    /**
+     * Returns the bounding box of the placed tiles, which is the smallest rectangle of spots that contains all of them.
+     * @return the bounding box in grid coordinates.
+     */
+    public Rectangle getBoundingBox() {
+        return occupancy.getBoundingBox();
+    }
+
     /**
      * Returns the spot of the first tile of round, the foundation tile.
      * @return the grid spot.
@@ -71,6 +224,83 @@ public class Grid {
         return foundation;
     }
 
+    /**
+     * Returns the edge signature of a spot, which is the terrain its occupied direct neighbors require on its edges.
+     * @param spot is the spot.
+     * @return the signature, or {@link EdgeSignature#UNCONSTRAINED} if the spot is not on the frontier.
+     */
+    public int getEdgeSignature(GridSpot spot) {
+        return frontierIndex.getSignature(spot);
+    }
+
+    /**
+     * Returns the frontier of the grid, which are all free spots with at least one occupied direct neighbor. Only these
+     * spots can potentially be used to place a tile.
+     * @return an unmodifiable view on the frontier, ordered by the coordinates of the spots.
+     */
+    public Collection<GridSpot> getFrontier() {
+        return Collections.unmodifiableSet(frontier);
+    }
+
+    /**
+     * Returns the Zobrist hash of the grid, which covers all placed tiles with their rotations and all placed meeples. It
+     * is updated incrementally with every change, which makes it a cheap key for positions.
+     * @return the 64-bit hash.
+     * @see ZobristKeys
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Returns the projected score of a player for a terrain type, which is the score the player would receive for the
+     * incomplete patterns of that terrain if the game ended now. The projected scores are maintained incrementally and
+     * do not require a traversal of the grid. Moves that are temporarily applied with
+     * {@link Grid#apply(AbstractCarcassonneMove)} are not included.
+     * @param player is the player.
+     * @param terrain is the terrain type.
+     * @param splitScore determines if shared patterns are scored by splitting the score or awarding full score.
+     * @return the projected score.
+     */
+    public int getProjectedScore(Player player, TerrainType terrain, boolean splitScore) {
+        return scoreLedger.getScore(player.getNumber(), terrain, splitScore);
+    }
+
+    /**
+     * Returns the projected score of a player for all terrain types, which is the score the player would receive for the
+     * incomplete patterns if the game ended now.
+     * @param player is the player.
+     * @param splitScore determines if shared patterns are scored by splitting the score or awarding full score.
+     * @return the projected score.
+     */
+    public int getProjectedScore(Player player, boolean splitScore) {
+        int score = 0;
+        for (TerrainType terrain : TerrainType.basicTerrain()) {
+            score += scoreLedger.getScore(player.getNumber(), terrain, splitScore);
+        }
+        return score;
+    }
+
+    /**
+     * Returns the spots of the frontier where a tile in its current rotation fits the terrain of the neighboring tiles.
+     * The enclave rule is not considered, as it does not depend on the tile.
+     * @param tile is the tile to place.
+     * @return the list of fitting spots, ordered like the frontier.
+     */
+    public List<GridSpot> getMatchingSpots(Tile tile) {
+        return frontierIndex.getMatchingSpots(tile.getEdgeSignature());
+    }
+
+    /**
+     * Counts the spots of the frontier where a tile in its current rotation fits the terrain of the neighboring tiles.
+     * @param tile is the tile to place.
+     * @return the number of fitting spots.
+     * @see #getMatchingSpots(Tile)
+     */
+    public int countMatchingSpots(Tile tile) {
+        return frontierIndex.countMatchingSpots(tile.getEdgeSignature());
+    }
+
     /**
      * Getter for the grid height.
      * @return the height
@@ -87,13 +317,14 @@ public class Grid {
      */
     public Collection<GridPattern> getLocalPatterns(GridSpot spot) {
         Collection<GridPattern> gridPatterns = new ArrayList<>();
+        Set<Integer> visitedComponents = new HashSet<>();
+        startTraversal();
         if (spot.isOccupied()) {
-            gridPatterns.addAll(spot.createPatternList());
+            gridPatterns.addAll(spot.createPatternList(visitedComponents));
         }
         for (GridSpot neighbor : getNeighbors(spot, false, GridDirection.directNeighbors())) {
-            gridPatterns.addAll(neighbor.createPatternList());
+            gridPatterns.addAll(neighbor.createPatternList(visitedComponents));
         }
-        gridPatterns.forEach(GridPattern::removeTileTags); // VERY IMPORTANT!
         return gridPatterns; // get patterns.
     }
 
@@ -107,9 +338,7 @@ public class Grid {
         if (spot.isFree()) {
             throw new IllegalArgumentException("Can't check for patterns on an free grid space");
         }
-        Collection<GridPattern> modifiedPatterns = spot.createPatternList();
-        modifiedPatterns.forEach(GridPattern::removeTileTags); // VERY IMPORTANT!
-        return modifiedPatterns; // get patterns.
+        return spot.createPatternList(); // get patterns.
     }
 
     /**
@@ -119,11 +348,13 @@ public class Grid {
      * @return the neighboring {@link GridSpot} or null if there is no tile placed.
      */
     public GridSpot getNeighbor(GridSpot spot, GridDirection direction) {
-        List<GridSpot> neighbors = getNeighbors(spot, direction);
-        if (neighbors.isEmpty()) {
-            return null; // return null if tile not placed or not on grid.
+        checkParameters(spot);
+        int x = direction.getX() + spot.getX();
+        int y = direction.getY() + spot.getY();
+        if (isOnGrid(x, y) && isOccupied(x, y)) {
+            return existingSpotAt(x, y);
         }
-        return neighbors.getFirst();
+        return null; // return null if tile not placed or not on grid.
     }
 
     /**
@@ -140,8 +371,8 @@ public class Grid {
         for (GridDirection direction : directions) {
             int newX = direction.getX() + spot.getX();
             int newY = direction.getY() + spot.getY();
-            if (isOnGrid(newX, newY) && (allowEmptySpots || spots[newX][newY].isOccupied())) {
-                neighbors.add(spots[newX][newY]); // return calculated neighbor if valid:
+            if (isOnGrid(newX, newY) && (allowEmptySpots || isOccupied(newX, newY))) {
+                neighbors.add(spotAt(newX, newY)); // return calculated neighbor if valid:
             }
         }
         return neighbors;
@@ -159,10 +390,8 @@ public class Grid {
         List<ZeroSumMove> possibleMoves = new ArrayList<>();
         for (TileRotation rotation : tile.getPossibleRotations()) {
             tile.rotateTo(rotation);
-            for (int x = 0; x < width; x++) { // TODO (HIGH) [PERFORMANCE] maybe we should track free and occupied spots?
-                for (int y = 0; y < height; y++) {
-                    possibleMoves.addAll(movesForGridSpot(player, spots[x][y], tile, settings));
-                }
+            for (GridSpot spot : getMatchingSpots(tile)) {
+                possibleMoves.addAll(movesForGridSpot(player, spot, tile, settings));
             }
         }
         Collections.sort(possibleMoves);
@@ -179,7 +408,7 @@ public class Grid {
      */
     public GridSpot getSpot(int x, int y) {
         checkParameters(x, y);
-        return spots[x][y];
+        return spotAt(x, y);
     }
 
     /**
@@ -197,9 +426,40 @@ public class Grid {
      * @return true if it does.
      */
     public boolean isClosingFreeSpotsOff(GridSpot spot, GridDirection direction) {
-        boolean[][] visitedPositions = new boolean[width][height];
-        visitedPositions[spot.getX()][spot.getY()] = true; // mark starting point as visited
-        return !findBoundary(spot, direction, visitedPositions); // start recursion
+        int stamp = nextVisitStamp();
+        markVisited(spot.getX(), spot.getY(), stamp); // mark starting point as visited
+        return !findBoundary(spot.getX() + direction.getX(), spot.getY() + direction.getY(), stamp);
+    }
+
+    /**
+     * Checks whether a spot on the grid would close free spots off in any direction if a tile would be placed there. As
+     * long as all tiles are connected and no free spots are closed off, this only requires a look at the eight surrounding
+     * spots: Two separate groups of free spots next to the spot are always separated by tiles that are connected through
+     * the other tiles, which means filling the spot closes a loop around one of the groups. Spots outside the grid count as
+     * free. Otherwise, this falls back to a search for the grid border for every direction.
+     * @param spot is the spot.
+     * @return true if it does.
+     */
+    public boolean isClosingFreeSpotsOff(GridSpot spot) {
+        checkParameters(spot);
+        if (isLocalEnclaveCheck()) {
+            return countFreeGroupsAround(spot) > 1;
+        }
+        for (GridDirection direction : GridDirection.directNeighbors()) {
+            if (getNeighbor(spot, direction) == null && isClosingFreeSpotsOff(spot, direction)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a spot is part of the frontier, meaning it is free and has at least one occupied direct neighbor.
+     * @param spot is the spot to check.
+     * @return true if it is part of the frontier.
+     */
+    public boolean isOnFrontier(GridSpot spot) {
+        return frontier.contains(spot);
     }
 
     /**
@@ -214,14 +474,7 @@ public class Grid {
      * @return true if full.
      */
     public boolean isFull() {
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                if (spots[x][y].isFree()) {
-                    return false; // grid is not full if one position is free
-                }
-            }
-        }
-        return true;
+        return countFreeSpots() == 0;
     }
 
     /**
@@ -234,14 +487,223 @@ public class Grid {
     public boolean place(int x, int y, Tile tile) {
         checkParameters(x, y);
         checkParameters(tile);
-        return spots[x][y].place(tile, allowEnclaves);
+        return spotAt(x, y).place(tile, allowEnclaves);
+    }
+
+    /**
+     * Unregisters a listener that was notified about the lifecycle of the patterns of this grid.
+     * @param listener is the listener to remove.
+     */
+    public void removePatternListener(PatternListener listener) {
+        patternListeners.remove(listener);
+    }
+
+    /**
+     * Creates an immutable snapshot of the board. Only the chunks that changed since the last snapshot are copied, all
+     * other chunks are shared with the last snapshot.
+     * @return the snapshot, which is the last snapshot if nothing changed since then.
+     */
+    public BoardSnapshot snapshot() {
+        if (snapshot == null || !changedChunks.isEmpty()) {
+            snapshot = new BoardSnapshot(snapshot, this, changedChunks);
+            changedChunks.clear();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Undoes the move that was applied last with {@link Grid#apply(AbstractCarcassonneMove)}, which exactly restores the
+     * state of the grid before that move.
+     * @return the undone move.
+     * @throws IllegalStateException if there is no applied move.
+     */
+    public AbstractCarcassonneMove undo() {
+        if (appliedMoves.isEmpty()) {
+            throw new IllegalStateException("There is no applied move to undo.");
+        }
+        AbstractCarcassonneMove move = appliedMoves.pop();
+        GridSpot spot = move.getGridSpot();
+        if (move.involvesMeeplePlacement()) {
+            spot.getTile().removeMeeple();
+        }
+        spot.removeTile();
+        return move;
+    }
+
+    /**
+     * Returns the cache of the placeable tile orientations of the frontier spots of this grid.
+     * @return the placeability cache.
+     */
+    PlaceabilityCache getPlaceabilityCache() {
+        return placeabilityCache;
+    }
+
+    /**
+     * Returns the persistent pattern engine that tracks the castle, road and field patterns of this grid.
+     * @return the pattern engine.
+     */
+    PatternEngine getPatternEngine() {
+        return patternEngine;
+    }
+
+    /**
+     * Returns the first tag stamp of the current pattern traversal. Tags with older stamps are stale, which means they do
+     * not count as tags anymore.
+     * @return the traversal stamp.
+     */
+    int getTraversalStamp() {
+        return traversalStamp;
+    }
+
+    /**
+     * Issues a new tag stamp, which is newer than all previously issued stamps.
+     * @return the new stamp.
+     */
+    int nextTagStamp() {
+        if (tagStamp == Integer.MAX_VALUE) { // overflow, reset all tags
+            for (GridSpot[] chunk : chunks.values()) {
+                for (GridSpot spot : chunk) {
+                    if (spot != null) {
+                        spot.clearTags();
+                    }
+                }
+            }
+            tagStamp = 0;
+        }
+        return ++tagStamp;
+    }
+
+    /**
+     * Starts a new pattern traversal, which invalidates the tags of all previous traversals.
+     */
+    void startTraversal() {
+        traversalStamp = nextTagStamp();
+    }
+
+    /**
+     * Updates the frontier and the patterns after a tile was placed on a spot.
+     * @param spot is the spot where the tile was placed.
+     */
+    void registerPlacement(GridSpot spot) {
+        boolean localEnclaveCheck = isLocalEnclaveCheck();
+        boolean disconnected = !frontier.isEmpty() && !frontier.contains(spot); // not connected to the other tiles
+        if (disconnected || countFreeGroupsAround(spot) > 1) {
+            enclosingPlacements.add(spot);
+        }
+        updateFrontier(spot);
+        invalidatePlaceability(spot, localEnclaveCheck);
+        occupancy.add(spot.getX(), spot.getY());
+        updateMonasteryCounters(spot, spot.getTile(), 1);
+        boolean temporary = spot.getTile() instanceof TemporaryTile; // temporary moves do not change the projected scores
+        if (!temporary) {
+            scoreLedger.beforePlacement(spot);
+        }
+        patternEngine.place(spot);
+        if (!temporary) {
+            scoreLedger.afterPlacement(spot);
+        }
+        hash ^= ZobristKeys.tileKey(spot.getX(), spot.getY(), spot.getTile().getType(), spot.getTile().getRotation());
+        changedChunks.add(chunkKey(spot.getX(), spot.getY()));
+        if (hasPatternListeners() && !temporary) {
+            publishPlacementEvents(spot);
+        }
+    }
+
+    /**
+     * Checks whether any listeners are notified about the lifecycle of the patterns.
+     * @return true if there is at least one listener.
+     */
+    boolean hasPatternListeners() {
+        return !patternListeners.isEmpty();
+    }
+
+    /**
+     * Notifies all pattern listeners about a pattern event.
+     * @param event is the event.
+     */
+    void publish(PatternEvent event) {
+        for (PatternListener listener : List.copyOf(patternListeners)) { // copy, as listeners may unregister themselves
+            listener.patternChanged(event);
+        }
+    }
+
+    /**
+     * Updates the frontier and the patterns after a tile was removed from a spot.
+     * @param spot is the spot where the tile was removed.
+     * @param tile is the removed tile.
+     */
+    void registerRemoval(GridSpot spot, Tile tile) {
+        boolean localEnclaveCheck = isLocalEnclaveCheck();
+        boolean lastPlaced = patternEngine.isLastPlaced(spot);
+        if (!lastPlaced) {
+            exactEnclaveCheck = true; // removal might have split the tiles or reopened free spots
+        }
+        enclosingPlacements.remove(spot);
+        updateFrontier(spot);
+        invalidatePlaceability(spot, localEnclaveCheck);
+        occupancy.remove(spot.getX(), spot.getY());
+        updateMonasteryCounters(spot, tile, -1);
+        boolean temporary = tile instanceof TemporaryTile && lastPlaced; // the ledger never saw the undone placement
+        if (!temporary) {
+            scoreLedger.beforeRemoval(spot);
+        }
+        patternEngine.remove(spot);
+        if (!temporary) {
+            scoreLedger.afterRemoval(spot, !lastPlaced);
+        }
+        hash ^= ZobristKeys.tileKey(spot.getX(), spot.getY(), tile.getType(), tile.getRotation());
+        changedChunks.add(chunkKey(spot.getX(), spot.getY()));
+    }
+
+    /**
+     * Updates the patterns, the hash and the projected scores after a meeple was placed on or removed from a spot.
+     * @param spot is the spot of the meeple.
+     * @param meeple is the placed or removed meeple.
+     * @param delta is 1 for placed and -1 for removed meeples.
+     */
+    void registerMeeple(GridSpot spot, Meeple meeple, int delta) {
+        patternEngine.updateMeeple(spot, meeple, delta);
+        hash ^= ZobristKeys.meepleKey(spot.getX(), spot.getY(), meeple.getPosition(), meeple.getOwner().getNumber());
+        changedChunks.add(chunkKey(spot.getX(), spot.getY()));
+        if (!(spot.getTile() instanceof TemporaryTile)) {
+            scoreLedger.meepleChanged(spot, meeple);
+        }
+    }
+
+    /**
+     * Calls an action for every spot with a monastery tile among the eight neighbors of a spot.
+     * @param spot is the spot.
+     * @param action is the action to call with the spots of the monasteries.
+     */
+    void forEachAdjacentMonastery(GridSpot spot, Consumer<GridSpot> action) {
+        GridDirection[] directions = GridDirection.values();
+        for (int mask = spot.getAdjacentMonasteries(); mask != 0; mask &= mask - 1) {
+            GridDirection direction = directions[Integer.numberOfTrailingZeros(mask)];
+            action.accept(existingSpotAt(spot.getX() + direction.getX(), spot.getY() + direction.getY()));
+        }
+    }
+
+    /**
+     * Returns all occupied spots of the grid in no particular order.
+     * @return the list of occupied spots.
+     */
+    List<GridSpot> getOccupiedSpots() {
+        List<GridSpot> occupiedSpots = new ArrayList<>();
+        for (GridSpot[] chunk : chunks.values()) {
+            for (GridSpot spot : chunk) {
+                if (spot != null && spot.isOccupied()) {
+                    occupiedSpots.add(spot);
+                }
+            }
+        }
+        return occupiedSpots;
     }
 
     private void checkParameters(GridSpot spot) {
         if (spot == null) {
             throw new IllegalArgumentException("Spot can't be null!");
         }
-        if (!spots[spot.getX()][spot.getY()].equals(spot)) {
+        if (!isOnGrid(spot.getX(), spot.getY()) || existingSpotAt(spot.getX(), spot.getY()) != spot) {
             throw new IllegalArgumentException("Spot is not on the grid!");
         }
     }
@@ -271,53 +733,292 @@ public class Grid {
         }
     }
 
-    // method tries to find a path of free grid spaces to the grid border.
-    private boolean findBoundary(GridSpot spot, GridDirection direction, boolean[][] visitedPositions) {
-        int newX = direction.getX() + spot.getX(); // get coordinates
-        int newY = direction.getY() + spot.getY(); // of free space
-        if (!isOnGrid(newX, newY)) { // if not on grid
-            return true; // found boundary
+    /**
+     * Counts the groups of free spots around a spot that touch one of its direct neighbors, while the spot itself is
+     * considered occupied. Spots outside the grid are considered free.
+     */
+    private int countFreeGroupsAround(GridSpot spot) {
+        int groups = 0;
+        int start = 0;
+        while (start < RING.size() && isFreeOrOutside(spot, RING.get(start))) {
+            start++; // find an occupied spot to start from
         }
-        if (spots[newX][newY].isFree() && !visitedPositions[newX][newY]) { // if not visited
-            visitedPositions[newX][newY] = true; // mark as visited
-            for (GridDirection newDirection : GridDirection.directNeighbors()) { // recursion
-                if (findBoundary(spots[newX][newY], newDirection, visitedPositions)) {
-                    return true; // found boundary
+        if (start == RING.size()) {
+            return 1; // completely surrounded by free spots
+        }
+        boolean touchingGroup = false;
+        for (int offset = 1; offset <= RING.size(); offset++) {
+            GridDirection direction = RING.get((start + offset) % RING.size());
+            if (isFreeOrOutside(spot, direction)) {
+                touchingGroup |= direction.isSmallerOrEquals(GridDirection.WEST); // direct neighbor
+            } else if (touchingGroup) {
+                groups++; // group ended
+                touchingGroup = false;
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * Invalidates the cached placeability of the spots around a changed spot. If the enclave rule could not be checked
+     * locally before or after the change, the placeability of any spot might have changed.
+     */
+    private void invalidatePlaceability(GridSpot spot, boolean localEnclaveCheckBefore) {
+        if (allowEnclaves || localEnclaveCheckBefore && isLocalEnclaveCheck()) {
+            placeabilityCache.invalidate(spot);
+            for (GridDirection direction : RING) {
+                GridSpot neighbor = existingSpotAt(spot.getX() + direction.getX(), spot.getY() + direction.getY());
+                if (neighbor != null) {
+                    placeabilityCache.invalidate(neighbor);
                 }
             }
+        } else {
+            placeabilityCache.clear();
         }
-        return false; // has not found boundary
     }
 
-    private List<GridSpot> getNeighbors(GridSpot spot, GridDirection direction) {
-        return getNeighbors(spot, false, List.of(direction));
+    /**
+     * Checks whether enclaves can be detected by looking at the surrounding spots, which requires all tiles to be connected
+     * and no free spots to be closed off.
+     */
+    private boolean isLocalEnclaveCheck() {
+        return enclosingPlacements.isEmpty() && !exactEnclaveCheck;
+    }
+
+    private boolean isFreeOrOutside(GridSpot spot, GridDirection direction) {
+        int x = spot.getX() + direction.getX();
+        int y = spot.getY() + direction.getY();
+        return !isOnGrid(x, y) || !isOccupied(x, y);
     }
 
     /**
-     * Checks whether specific coordinates are on the grid.
-     * @param x is the x coordinate
-     * @param y is the y coordinate
-     * @return true if it is on the grid.
+     * Returns the spot on specific coordinates, allocates the spot and its chunk if they do not exist yet.
+     */
+    private GridSpot spotAt(int x, int y) {
+        GridSpot[] chunk = chunks.computeIfAbsent(chunkKey(x, y), key -> new GridSpot[CHUNK_SIZE * CHUNK_SIZE]);
+        int index = chunkIndex(x, y);
+        if (chunk[index] == null) {
+            chunk[index] = new GridSpot(this, x, y);
+        }
+        return chunk[index];
+    }
+
+    /**
+     * Returns the chunk of spots with a specific key.
+     * @param key is the chunk key.
+     * @return the chunk or null if none of its spots were allocated.
+     */
+    GridSpot[] getChunk(long key) {
+        return chunks.get(key);
+    }
+
+    /**
+     * Returns the spot on specific coordinates if it was already allocated, otherwise null.
+     */
+    private GridSpot existingSpotAt(int x, int y) {
+        GridSpot[] chunk = chunks.get(chunkKey(x, y));
+        return chunk == null ? null : chunk[chunkIndex(x, y)];
+    }
+
+    /**
+     * Checks whether the spot on specific coordinates is occupied without allocating it.
+     * @param x is the x coordinate of the spot.
+     * @param y is the y coordinate of the spot.
+     * @return true if a tile is placed on the spot.
+     */
+    boolean isOccupied(int x, int y) {
+        GridSpot spot = existingSpotAt(x, y);
+        return spot != null && spot.isOccupied();
+    }
+
+    static long chunkKey(int x, int y) { // arithmetic shifts allow negative coordinates
+        return (long) (x >> CHUNK_BITS) << Integer.SIZE | (y >> CHUNK_BITS) & 0xFFFFFFFFL;
+    }
+
+    static int chunkIndex(int x, int y) {
+        return (y & CHUNK_MASK) << CHUNK_BITS | x & CHUNK_MASK;
+    }
+
+    /**
+     * Searches a path of free grid spaces from a starting position to the grid border. The search is a depth-first search
+     * with an explicit stack of packed coordinates, which allows free areas of any size.
      */
+    private boolean findBoundary(int startX, int startY, int stamp) {
+        int stackSize = 0;
+        boundaryStack[stackSize++] = packCoordinates(startX, startY);
+        while (stackSize > 0) {
+            long position = boundaryStack[--stackSize];
+            int x = (int) (position >> Integer.SIZE);
+            int y = (int) position;
+            if (!isOnGrid(x, y)) { // if not on grid
+                return true; // found boundary
+            }
+            if (!isOccupied(x, y) && markVisited(x, y, stamp)) { // if free and not visited
+                if (stackSize + DIRECT_NEIGHBORS.size() > boundaryStack.length) {
+                    boundaryStack = Arrays.copyOf(boundaryStack, boundaryStack.length * 2);
+                }
+                for (int index = DIRECT_NEIGHBORS.size() - 1; index >= 0; index--) { // first direction is searched first
+                    GridDirection direction = DIRECT_NEIGHBORS.get(index);
+                    boundaryStack[stackSize++] = packCoordinates(x + direction.getX(), y + direction.getY());
+                }
+            }
+        }
+        return false; // has not found boundary
+    }
+
+    /**
+     * Marks a position as visited during the boundary search with a specific stamp.
+     * @return true if the position was not visited before.
+     */
+    private boolean markVisited(int x, int y, int stamp) {
+        int[] chunk = visitStamps.computeIfAbsent(chunkKey(x, y), key -> new int[CHUNK_SIZE * CHUNK_SIZE]);
+        int index = chunkIndex(x, y);
+        if (chunk[index] == stamp) {
+            return false;
+        }
+        chunk[index] = stamp;
+        return true;
+    }
+
+    private int nextVisitStamp() {
+        if (visitStamp == Integer.MAX_VALUE) { // overflow, forget all visits
+            visitStamps.clear();
+            visitStamp = 0;
+        }
+        return ++visitStamp;
+    }
+
+    static long packCoordinates(int x, int y) {
+        return (long) x << Integer.SIZE | y & 0xFFFFFFFFL;
+    }
+
     private boolean isOnGrid(int x, int y) {
         return x >= 0 && x < width && y >= 0 && y < height;
     }
 
+    /**
+     * Updates the frontier after the occupation of a spot changed, which affects the spot itself and its direct neighbors.
+     */
+    private void updateFrontier(GridSpot spot) {
+        updateFrontierMembership(spot);
+        for (GridSpot neighbor : getNeighbors(spot, true, GridDirection.directNeighbors())) {
+            updateFrontierMembership(neighbor);
+        }
+    }
+
+    private void updateFrontierMembership(GridSpot spot) {
+        int signature = EdgeSignature.UNCONSTRAINED;
+        if (spot.isFree()) {
+            for (GridDirection direction : DIRECT_NEIGHBORS) {
+                GridSpot neighbor = getNeighbor(spot, direction);
+                if (neighbor != null) {
+                    signature |= EdgeSignature.of(direction, neighbor.getTile().getTerrain(direction.opposite()));
+                }
+            }
+        }
+        if (signature == EdgeSignature.UNCONSTRAINED) {
+            frontier.remove(spot);
+            frontierIndex.remove(spot);
+        } else {
+            frontier.add(spot);
+            frontierIndex.update(spot, signature);
+        }
+    }
+
+    /**
+     * Publishes the events of the patterns of a newly placed tile, which are created, extended, merged, or completed, as
+     * well as the events of the completed neighboring monasteries.
+     */
+    private void publishPlacementEvents(GridSpot spot) {
+        Tile tile = spot.getTile();
+        List<Integer> publishedComponents = new ArrayList<>();
+        for (GridDirection position : GridDirection.tilePositions()) {
+            TerrainType terrain = tile.getTerrain(position);
+            if (terrain == TerrainType.CASTLE || terrain == TerrainType.ROAD) {
+                publishPlacementEvents(spot, position, terrain, publishedComponents);
+            }
+        }
+        for (GridDirection position : GridDirection.values()) {
+            if (tile.getTerrain(position) == TerrainType.FIELDS) {
+                publishPlacementEvents(spot, position, TerrainType.FIELDS, publishedComponents);
+            }
+        }
+        if (tile.getTerrain(GridDirection.CENTER) == TerrainType.MONASTERY) {
+            publish(createEvent(PatternEventType.CREATED, new MonasteryPattern(spot), PatternEvent.NO_COMPONENT, spot, GridDirection.CENTER));
+        }
+        publishIfCompleteMonastery(spot);
+        forEachAdjacentMonastery(spot, this::publishIfCompleteMonastery);
+    }
+
+    private void publishIfCompleteMonastery(GridSpot spot) {
+        if (isMonastery(spot.getTile()) && spot.getOccupiedNeighbors() == GridDirection.neighbors().size()) {
+            publish(createEvent(PatternEventType.COMPLETED, new MonasteryPattern(spot), PatternEvent.NO_COMPONENT, spot, GridDirection.CENTER));
+        }
+    }
+
+    /**
+     * Updates the occupied neighbor counters of the monasteries around a spot after a tile was placed on it or removed
+     * from it. If the tile is a monastery itself, its neighbors are marked or unmarked as adjacent to a monastery and its
+     * own counter is initialized.
+     */
+    private void updateMonasteryCounters(GridSpot spot, Tile tile, int delta) {
+        forEachAdjacentMonastery(spot, monastery -> monastery.setOccupiedNeighbors(monastery.getOccupiedNeighbors() + delta));
+        if (isMonastery(tile)) {
+            int occupiedNeighbors = 0;
+            for (GridDirection direction : GridDirection.neighbors()) {
+                int x = spot.getX() + direction.getX();
+                int y = spot.getY() + direction.getY();
+                if (isOnGrid(x, y)) {
+                    GridSpot neighbor = spotAt(x, y);
+                    neighbor.toggleAdjacentMonastery(direction.opposite());
+                    if (neighbor.isOccupied()) {
+                        occupiedNeighbors++;
+                    }
+                }
+            }
+            spot.setOccupiedNeighbors(delta > 0 ? occupiedNeighbors : 0);
+        }
+    }
+
+    private static boolean isMonastery(Tile tile) {
+        return tile.getTerrain(GridDirection.CENTER) == TerrainType.MONASTERY;
+    }
+
+    private void publishPlacementEvents(GridSpot spot, GridDirection position, TerrainType terrain, List<Integer> publishedComponents) {
+        int component = patternEngine.find(patternEngine.nodeAt(spot, position));
+        if (!publishedComponents.contains(component)) {
+            publishedComponents.add(component);
+            GridPattern pattern = terrain == TerrainType.FIELDS ? new FieldsPattern(spot, position) : new CastleAndRoadPattern(spot, position, terrain);
+            int mergedComponents = patternEngine.countMergedComponents(component);
+            PatternEventType type = switch (mergedComponents) {
+                case 0 -> PatternEventType.CREATED;
+                case 1 -> PatternEventType.EXTENDED;
+                default -> PatternEventType.MERGED;
+            };
+            publish(createEvent(type, pattern, component, spot, position));
+            if (pattern.isComplete()) {
+                publish(createEvent(PatternEventType.COMPLETED, pattern, component, spot, position));
+            }
+        }
+    }
+
+    private static PatternEvent createEvent(PatternEventType type, GridPattern pattern, int component, GridSpot spot, GridDirection position) {
+        Map<Player, Integer> scoreDeltas = new HashMap<>();
+        if (type == PatternEventType.COMPLETED) {
+            pattern.getDominantPlayers().forEach(player -> scoreDeltas.put(player, pattern.getScoreFor(player)));
+        }
+        return new PatternEvent(type, pattern.getType(), component, spot, position, pattern.getMeepleList(), scoreDeltas);
+    }
+
     private List<ZeroSumMove> movesForGridSpot(Player player, GridSpot spot, Tile originalTile, GameSettings settings) {
         List<ZeroSumMove> possibleMoves = new ArrayList<>();
         if (spot.isPlaceable(originalTile, allowEnclaves)) {
             TemporaryTile tile = new TemporaryTile(originalTile, originalTile.getRotation());
-            spot.place(tile, allowEnclaves);
-            possibleMoves.add(new ZeroSumMove(tile, player, settings));
-            if (player.hasFreeMeeples()) {
-                for (GridDirection position : GridDirection.values()) {
-                    if (tile.hasMeepleSpot(position) && settings.getMeepleRule(tile.getTerrain(position))
-                            && tile.allowsPlacingMeeple(position, player, settings)) {
-                        possibleMoves.add(new ZeroSumMove(tile, position, player, settings));
-                    }
-                }
+            ZeroSumMove moveWithoutMeeple = new ZeroSumMove(tile, spot, player, settings);
+            possibleMoves.add(moveWithoutMeeple);
+            for (GridDirection position : moveWithoutMeeple.getMeeplePositions()) {
+                possibleMoves.add(new ZeroSumMove(tile, spot, position, player, settings));
             }
-            spot.removeTile();
         }
         return possibleMoves;
     }
@@ -329,7 +1030,7 @@ public class Grid {
     private void placeFoundation(TileType tileType) {
         int centerX = (width - 1) / 2;
         int centerY = (height - 1) / 2;
-        foundation = spots[centerX][centerY];
+        foundation = spotAt(centerX, centerY);
         foundation.forcePlacement(new Tile(tileType));
     }
 }
\ No newline at end of file
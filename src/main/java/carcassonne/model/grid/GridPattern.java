@@ -1,6 +1,7 @@
 package carcassonne.model.grid;
 
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -9,22 +10,32 @@ import java.util.Map;
 import carcassonne.model.Meeple;
 import carcassonne.model.Player;
 import carcassonne.model.terrain.TerrainType;
+import carcassonne.settings.GameSettings;
 
 /**
  * A pattern of connected terrain on tiles of the grid. A grid pattern contains information about the tiles of the
  * pattern and the players involved in the pattern. Also, it counts the amount of meeples per player on the tiles of the
- * pattern.
+ * pattern. The counts are indexed by the player numbers, and the dominant players are kept as a bit mask of player
+ * numbers, which makes score queries free of allocations.
  * @author Timur Saglam
  */
 public class GridPattern {
 
     private boolean disbursed;
     protected boolean complete;
-    private final Map<Player, Integer> involvedPlayers;
+    private final int[] meepleCounts; // meeples per player number
+    private final Player[] involvedPlayers; // players with meeples on the pattern by their number
+    private int dominantPlayerMask; // bit mask of the numbers of the players with the most meeples
+    private int maximalMeeples; // meeples of each dominant player
+    private List<Player> dominantPlayers; // cached list of the dominant players, null if outdated
     private final List<Meeple> meepleList;
     protected final TerrainType patternType;
     protected final int scoreMultiplier;
     protected final List<GridSpot> containedSpots;
+    private int tagStamp; // stamp of the tags of this pattern on the grid spots
+    private GridSpot originSpot; // spot and position from which the pattern was created
+    private GridDirection originPosition;
+    private int component = PatternEvent.NO_COMPONENT;
 
     /**
      * Basic constructor taking only a tile type.
@@ -35,8 +46,9 @@ public class GridPattern {
         this.patternType = patternType;
         this.scoreMultiplier = scoreMultiplier;
         containedSpots = new LinkedList<>();
-        meepleList = new LinkedList<>();
-        involvedPlayers = new HashMap<>();
+        meepleList = new ArrayList<>();
+        meepleCounts = new int[GameSettings.MAXIMAL_PLAYERS];
+        involvedPlayers = new Player[GameSettings.MAXIMAL_PLAYERS];
     }
 
     /**
@@ -46,9 +58,11 @@ public class GridPattern {
      */
     public void disburse(boolean splitScore) {
         if (complete) {
-            distributePatternScore(splitScore);
+            Map<Player, Integer> scoreDeltas = distributePatternScore(splitScore);
+            List<Meeple> meeples = List.copyOf(meepleList);
             meepleList.forEach(it -> it.getLocation().getTile().removeMeeple()); // remove meeples from tiles.
-            involvedPlayers.clear();
+            clearPlayers();
+            publishDisbursement(meeples, scoreDeltas);
         }
     }
 
@@ -59,19 +73,34 @@ public class GridPattern {
      */
     public void forceDisburse(boolean splitScore) {
         if (!complete) {
-            distributePatternScore(splitScore);
+            Map<Player, Integer> scoreDeltas = distributePatternScore(splitScore);
+            if (!scoreDeltas.isEmpty()) {
+                publishDisbursement(meepleList, scoreDeltas);
+            }
         }
     }
 
     /**
      * Determines the dominant players, which are the involved players with maximum amount of meeples on this pattern.
+     * @return the unmodifiable list of dominant players, ordered by their number.
      */
     public List<Player> getDominantPlayers() {
-        if (involvedPlayers.isEmpty()) {
-            return Collections.emptyList();
+        if (dominantPlayers == null) {
+            List<Player> players = new ArrayList<>(Integer.bitCount(dominantPlayerMask));
+            for (int mask = dominantPlayerMask; mask != 0; mask &= mask - 1) {
+                players.add(involvedPlayers[Integer.numberOfTrailingZeros(mask)]);
+            }
+            dominantPlayers = List.copyOf(players);
         }
-        int maximum = Collections.max(involvedPlayers.values()); // most meeples on pattern
-        return involvedPlayers.keySet().stream().filter(player -> involvedPlayers.get(player) == maximum).toList();
+        return dominantPlayers;
+    }
+
+    /**
+     * Returns the dominant players as bit mask, where bit n is set if the player with the number n is dominant.
+     * @return the bit mask of the numbers of the dominant players.
+     */
+    public int getDominantPlayerMask() {
+        return dominantPlayerMask;
     }
 
     /**
@@ -87,7 +116,7 @@ public class GridPattern {
      * @return the full score.
      */
     public int getPatternScore() {
-        return containedSpots.size() * scoreMultiplier;
+        return getSize() * scoreMultiplier;
     }
 
     /**
@@ -98,12 +127,21 @@ public class GridPattern {
         return patternType;
     }
 
+    /**
+     * Returns the score a player receives for this pattern, which is the split score if the player is dominant.
+     * @param player is the player.
+     * @return the score of the player, or 0 if the player is not dominant.
+     */
     public int getScoreFor(Player player) {
-        List<Player> dominantPlayers = getDominantPlayers();
-        if (dominantPlayers.contains(player)) {
-            return divideScore(getPatternScore(), dominantPlayers);
-        }
-        return 0;
+        return isDominant(player) ? getSplitScore() : 0;
+    }
+
+    /**
+     * Returns the score each dominant player receives if the dominant players split the score of the pattern.
+     * @return the split score, or 0 if the pattern is not occupied.
+     */
+    public int getSplitScore() {
+        return isNotOccupied() ? 0 : divideScore(getPatternScore(), Integer.bitCount(dominantPlayerMask));
     }
 
     /**
@@ -127,48 +165,51 @@ public class GridPattern {
      * @return true if the pattern is not occupied, false if not.
      */
     public boolean isNotOccupied() { // TODO [HIGH] rename to isUnoccupied
-        return involvedPlayers.isEmpty();
+        return dominantPlayerMask == 0;
     }
 
     /**
-     * Checks whether a specific player is involved in the occupation of the pattern. That means he has at least one meeple
-     * on the pattern.
+     * Checks whether a specific player is one of the dominant players of the pattern.
      * @param player is the specific player.
-     * @return true if he is involved in the occupation of the pattern, false if not.
-     */
-    public boolean isOccupiedBy(Player player) {
-        return involvedPlayers.containsKey(player);
-    }
-
-    /**
-     * Removes all OWN tags of all tiles of the pattern.
+     * @return true if the player has the maximum amount of meeples on the pattern.
      */
-    public void removeOwnTags() {
-        containedSpots.forEach(it -> it.removeTagsFrom(this));
+    public boolean isDominant(Player player) {
+        return (dominantPlayerMask & 1 << player.getNumber()) != 0;
     }
 
     /**
-     * Removes all tags of all tiles of the pattern. Needs to be called after ALL patterns of a tile have been created.
+     * Checks whether a specific player is involved in the occupation of the pattern. That means he has at least one meeple
+     * on the pattern.
+     * @param player is the specific player.
+     * @return true if he is involved in the occupation of the pattern, false if not.
      */
-    public void removeTileTags() {
-        containedSpots.forEach(GridSpot::removeTags);
+    public boolean isOccupiedBy(Player player) {
+        return meepleCounts[player.getNumber()] > 0;
     }
 
     @Override
     public String toString() {
         return "GridPattern[type: " + patternType + ", size: " + getSize() + ", complete: " + complete + ", disbursed: " + disbursed + ", meeples: "
-                + meepleList + ", on: " + containedSpots.stream().map(it -> "(" + it.getX() + "|" + it.getY() + ")").toList() + "]";
+                + meepleList + ", on: " + getContainedSpots().stream().map(it -> "(" + it.getX() + "|" + it.getY() + ")").toList() + "]";
     }
 
-    private void distributePatternScore(boolean splitScore) {
-        if (!disbursed && !involvedPlayers.isEmpty()) {
-            List<Player> dominantPlayers = getDominantPlayers();
-            int stake = splitScore ? divideScore(getPatternScore(), dominantPlayers) : getPatternScore();
-            for (Player player : dominantPlayers) { // dominant players split the pot
+    private Map<Player, Integer> distributePatternScore(boolean splitScore) {
+        Map<Player, Integer> scoreDeltas = new HashMap<>();
+        if (!disbursed && !isNotOccupied()) {
+            int stake = splitScore ? getSplitScore() : getPatternScore();
+            for (Player player : getDominantPlayers()) { // dominant players split the pot
                 player.addPoints(stake, patternType);
+                scoreDeltas.put(player, stake);
             }
             disbursed = true;
         }
+        return scoreDeltas;
+    }
+
+    private void publishDisbursement(List<Meeple> meeples, Map<Player, Integer> scoreDeltas) {
+        if (originSpot != null && originSpot.getGrid().hasPatternListeners()) {
+            originSpot.getGrid().publish(new PatternEvent(PatternEventType.DISBURSED, patternType, component, originSpot, originPosition, meeples, scoreDeltas));
+        }
     }
 
     // adds meeple from tile to involvedPlayers map if the meeple is involved in the pattern.
@@ -176,18 +217,26 @@ public class GridPattern {
         assert !disbursed;
         Meeple meeple = spot.getTile().getMeeple(); // Meeple on the tile.
         if (!meepleList.contains(meeple) && isPartOfPattern(spot, meeple.getPosition())) {
-            Player player = meeple.getOwner(); // owner of the meeple.
-            if (involvedPlayers.containsKey(player)) {
-                involvedPlayers.put(player, involvedPlayers.get(player) + 1);
-            } else {
-                involvedPlayers.put(player, 1);
-            }
-            meepleList.add(meeple);
+            addMeeple(meeple);
         }
     }
 
-    private int divideScore(int score, List<Player> dominantPlayers) {
-        return (int) Math.ceil(score / (double) dominantPlayers.size());
+    private void clearPlayers() {
+        Arrays.fill(meepleCounts, 0);
+        Arrays.fill(involvedPlayers, null);
+        dominantPlayerMask = 0;
+        maximalMeeples = 0;
+        dominantPlayers = null;
+    }
+
+    /**
+     * Divides the score of a pattern among its dominant players, rounding up.
+     * @param score is the score of the pattern.
+     * @param dominantPlayerCount is the number of dominant players.
+     * @return the score of each dominant player.
+     */
+    static int divideScore(int score, int dominantPlayerCount) {
+        return (int) Math.ceil(score / (double) dominantPlayerCount);
     }
 
     private boolean isPartOfPattern(GridSpot spot, GridDirection position) {
@@ -207,6 +256,61 @@ public class GridPattern {
         }
     }
 
+    /**
+     * Adds a meeple that is placed on the pattern, saving the owner of the meeple as involved player.
+     * @param meeple is the meeple to add.
+     */
+    protected void addMeeple(Meeple meeple) {
+        Player player = meeple.getOwner(); // owner of the meeple.
+        int number = player.getNumber();
+        involvedPlayers[number] = player;
+        int meeples = ++meepleCounts[number];
+        if (meeples > maximalMeeples) { // player is the only dominant player
+            maximalMeeples = meeples;
+            dominantPlayerMask = 1 << number;
+        } else if (meeples == maximalMeeples) {
+            dominantPlayerMask |= 1 << number;
+        }
+        dominantPlayers = null;
+        meepleList.add(meeple);
+    }
+
+    /**
+     * Getter for the tag stamp, which identifies the tags of this pattern on the grid spots.
+     * @return the tag stamp or 0 if the pattern never tagged a spot.
+     */
+    int getTagStamp() {
+        return tagStamp;
+    }
+
+    /**
+     * Setter for the tag stamp, which identifies the tags of this pattern on the grid spots.
+     * @param tagStamp is the new tag stamp.
+     */
+    void setTagStamp(int tagStamp) {
+        this.tagStamp = tagStamp;
+    }
+
+    /**
+     * Sets the origin of the pattern, which identifies the pattern in {@link PatternEvent}s.
+     * @param spot is the spot from which the pattern was created.
+     * @param position is the position on the tile of the spot from which the pattern was created.
+     * @param component is the id of the pattern component in the grid or {@link PatternEvent#NO_COMPONENT}.
+     */
+    protected void setOrigin(GridSpot spot, GridDirection position, int component) {
+        originSpot = spot;
+        originPosition = position;
+        this.component = component;
+    }
+
+    /**
+     * Returns the spots of the tiles of the pattern.
+     * @return the list of spots.
+     */
+    protected List<GridSpot> getContainedSpots() {
+        return containedSpots;
+    }
+
     /**
      * Checks the usual inputs on being null.
      * @param spot is any grid spot.
@@ -2,14 +2,14 @@ package carcassonne.model.grid;
 
 import static carcassonne.model.grid.GridDirection.CENTER;
 
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.EnumMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
+import carcassonne.model.Meeple;
 import carcassonne.model.terrain.TerrainType;
 import carcassonne.model.tile.Tile;
 
@@ -20,7 +20,10 @@ import carcassonne.model.tile.Tile;
 public class GridSpot {
 
     private final Grid grid;
-    private final Map<GridDirection, Set<GridPattern>> tagMap; // maps tagged location to the patterns.
+    private final int[] tagStamps; // tag stamps of the patterns per tile position, stale stamps mean untagged
+    private int[] patternNodes; // maps tile positions to the nodes of the pattern engine
+    private int adjacentMonasteries; // bit mask of the directions of the neighboring monastery tiles
+    private int occupiedNeighbors; // number of occupied neighbors, only tracked for monastery tiles
     private Tile tile;
     private final int x;
     private final int y;
@@ -35,10 +38,7 @@ public class GridSpot {
         this.grid = grid;
         this.x = x;
         this.y = y;
-        tagMap = new EnumMap<>(GridDirection.class);
-        for (GridDirection direction : GridDirection.values()) {
-            tagMap.put(direction, new HashSet<>());
-        }
+        tagStamps = new int[GridDirection.values().length];
     }
 
     /**
@@ -46,27 +46,40 @@ public class GridSpot {
      * @return the list of patterns.
      */
     public Collection<GridPattern> createPatternList() {
+        grid.startTraversal();
+        return createPatternList(new HashSet<>());
+    }
+
+    /**
+     * Creates list of all patterns that are affected by this spot, except the castle, road and field patterns that were
+     * already visited.
+     * @param visitedComponents are the pattern engine components of the already visited castle, road and field patterns.
+     * @return the list of patterns.
+     */
+    Collection<GridPattern> createPatternList(Set<Integer> visitedComponents) {
         if (isFree()) {
             throw new IllegalStateException("GridSpot is free, cannot create patterns");
         }
         List<GridPattern> results = new LinkedList<>();
         // first, check for castle and road patterns:
+        PatternEngine engine = grid.getPatternEngine();
         for (GridDirection direction : GridDirection.tilePositions()) {
             TerrainType terrain = tile.getTerrain(direction); // get terrain type.
-            if ((terrain == TerrainType.CASTLE || terrain == TerrainType.ROAD) && isUntagged(direction)) {
+            if ((terrain == TerrainType.CASTLE || terrain == TerrainType.ROAD)
+                    && visitedComponents.add(engine.find(engine.nodeAt(this, direction)))) {
                 results.add(new CastleAndRoadPattern(this, direction, terrain));
             }
         }
         // then, check fields:
         for (GridDirection direction : GridDirection.values()) {
             TerrainType terrain = tile.getTerrain(direction); // get terrain type.
-            if (terrain == TerrainType.FIELDS && isUntagged(direction)) {
+            if (terrain == TerrainType.FIELDS && visitedComponents.add(engine.find(engine.nodeAt(this, direction)))) {
                 results.add(new FieldsPattern(this, direction));
             }
         }
         // then check for monastery patterns:
         addPatternIfMonastery(this, results); // the tile itself
-        grid.getNeighbors(this, false, GridDirection.neighbors()).forEach(it -> addPatternIfMonastery(it, results));
+        grid.forEachAdjacentMonastery(this, it -> addPatternIfMonastery(it, results));
         return results; // return all patterns.
     }
 
@@ -77,6 +90,7 @@ public class GridSpot {
     public void forcePlacement(Tile tile) {
         this.tile = tile;
         tile.setPosition(this);
+        grid.registerPlacement(this);
     }
 
     /**
@@ -95,6 +109,22 @@ public class GridSpot {
         return grid;
     }
 
+    /**
+     * Updates the patterns of the grid after a meeple was placed on the tile of this spot.
+     * @param meeple is the placed meeple.
+     */
+    public void registerMeeple(Meeple meeple) {
+        grid.registerMeeple(this, meeple, 1);
+    }
+
+    /**
+     * Updates the patterns of the grid after a meeple was removed from the tile of this spot.
+     * @param meeple is the removed meeple.
+     */
+    public void unregisterMeeple(Meeple meeple) {
+        grid.registerMeeple(this, meeple, -1);
+    }
+
     /**
      * Getter for the x coordinate of the spot.
      * @return the x coordinate.
@@ -135,7 +165,8 @@ public class GridSpot {
      */
     public boolean isIndirectlyTaggedBy(GridDirection tilePosition, GridPattern tagger) {
         for (GridDirection otherPosition : GridDirection.values()) {
-            if (tile.hasConnection(tilePosition, otherPosition) && tagMap.get(otherPosition).contains(tagger)) {
+            if (tile.hasConnection(tilePosition, otherPosition) && tagger.getTagStamp() != 0
+                    && tagStamps[otherPosition.ordinal()] == tagger.getTagStamp()) {
                 return true;
             }
         }
@@ -166,39 +197,16 @@ public class GridSpot {
      * @return true if the tile can be placed.
      */
     public boolean isPlaceable(Tile tile, boolean allowEnclaves) {
-        if (isOccupied()) {
-            return false; // can't be placed if spot is occupied.
+        if (!grid.isOnFrontier(this)) {
+            return false; // can't be placed if spot is occupied or has no neighboring tiles.
         }
-        int neighborCount = 0;
-        for (GridDirection direction : GridDirection.directNeighbors()) { // for every direction
-            GridSpot neighbor = grid.getNeighbor(this, direction);
-            if (neighbor == null) { // free space
-                if (!allowEnclaves && grid.isClosingFreeSpotsOff(this, direction)) {
-                    return false; // you can't close off free spaces
-                }
-            } else { // if there is a neighbor in the direction.
-                neighborCount++;
-                if (!tile.canConnectTo(direction, neighbor.getTile())) {
-                    return false; // if it does not fit to terrain, it can't be placed.
-                }
-            }
+        if (allowEnclaves == grid.isAllowingEnclaves()) { // rules of the grid, cached
+            return grid.getPlaceabilityCache().isPlaceable(this, tile.getType(), tile.getRotation());
         }
-        return neighborCount > 0; // can be placed beneath another tile.
-    }
-
-    /**
-     * Removes all the tags from the tile.
-     */
-    public void removeTags() {
-        tagMap.values().forEach(Set::clear);
-    }
-
-    /**
-     * Removes all the tags of a specific pattern from the tile.
-     * @param pattern is the specific grid pattern.
-     */
-    public void removeTagsFrom(GridPattern pattern) {
-        tagMap.values().forEach(it -> it.remove(pattern));
+        if (!EdgeSignature.matches(grid.getEdgeSignature(this), tile.getEdgeSignature())) {
+            return false; // if it does not fit to terrain, it can't be placed.
+        }
+        return allowEnclaves || !grid.isClosingFreeSpotsOff(this); // you can't close off free spaces
     }
 
     /**
@@ -211,6 +219,7 @@ public class GridSpot {
         if (isPlaceable(tile, allowEnclaves)) {
             tile.setPosition(this);
             this.tile = tile;
+            grid.registerPlacement(this);
             return true; // tile was successfully placed.
         }
         return false; // tile can't be placed, spot is occupied.
@@ -221,18 +230,79 @@ public class GridSpot {
      */
     public void removeTile() { // TODO (HIGH) [AI] this should be only allowed for temporary tiles.
         if (tile != null) {
+            Tile removedTile = tile;
             tile.setPosition(null);
             tile = null;
+            grid.registerRemoval(this, removedTile);
         }
     }
 
     /**
-     * tag the tile as recently checked by grid pattern checks for a specific direction.
+     * tag the tile as recently checked by grid pattern checks for a specific direction. The tag is only valid during the
+     * current pattern traversal of the grid.
      * @param direction is the tag direction.
      * @param tagger is the {@link GridPattern} that tagged the spot.
      */
     public void setTag(GridDirection direction, GridPattern tagger) {
-        tagMap.get(direction).add(tagger);
+        if (tagger.getTagStamp() < grid.getTraversalStamp()) {
+            tagger.setTagStamp(grid.nextTagStamp()); // pattern has not tagged during this traversal yet
+        }
+        tagStamps[direction.ordinal()] = tagger.getTagStamp();
+    }
+
+    /**
+     * Removes all tags, which is only required when the tag stamps of the grid overflow.
+     */
+    void clearTags() {
+        Arrays.fill(tagStamps, 0);
+    }
+
+    /**
+     * Returns the directions of the neighboring monastery tiles.
+     * @return the bit mask of the directions, indexed by their ordinals.
+     */
+    int getAdjacentMonasteries() {
+        return adjacentMonasteries;
+    }
+
+    /**
+     * Marks or unmarks a neighboring monastery tile after it was placed or removed.
+     * @param direction is the direction of the monastery.
+     */
+    void toggleAdjacentMonastery(GridDirection direction) {
+        adjacentMonasteries ^= 1 << direction.ordinal();
+    }
+
+    /**
+     * Returns the number of occupied neighbors of the spot, which is only tracked while a monastery tile is placed.
+     * @return the number of occupied neighbors.
+     */
+    int getOccupiedNeighbors() {
+        return occupiedNeighbors;
+    }
+
+    /**
+     * Setter for the number of occupied neighbors of the spot.
+     * @param occupiedNeighbors is the number of occupied neighbors.
+     */
+    void setOccupiedNeighbors(int occupiedNeighbors) {
+        this.occupiedNeighbors = occupiedNeighbors;
+    }
+
+    /**
+     * Getter for the nodes of the pattern engine.
+     * @return the nodes per tile position or null if no tile is placed.
+     */
+    int[] getPatternNodes() {
+        return patternNodes;
+    }
+
+    /**
+     * Setter for the nodes of the pattern engine.
+     * @param patternNodes are the nodes per tile position or null if no tile is placed.
+     */
+    void setPatternNodes(int[] patternNodes) {
+        this.patternNodes = patternNodes;
     }
 
     @Override
@@ -242,7 +312,9 @@ public class GridSpot {
 
     private void addPatternIfMonastery(GridSpot spot, List<GridPattern> patternList) {
         if (spot.getTile().getTerrain(CENTER) == TerrainType.MONASTERY && spot.isUntagged(CENTER)) {
-            patternList.add(new MonasteryPattern(spot));
+            MonasteryPattern pattern = new MonasteryPattern(spot);
+            spot.setTag(CENTER, pattern); // the monastery is only added once per traversal
+            patternList.add(pattern);
         }
     }
 
@@ -250,7 +322,7 @@ public class GridSpot {
      * Method determines if tile recently was tagged by grid pattern checks on a specific position or not.
      * @return true if it was tagged.
      */
-    private Boolean isTagged(GridDirection direction) {
-        return !tagMap.get(direction).isEmpty();
+    private boolean isTagged(GridDirection direction) {
+        return tagStamps[direction.ordinal()] >= grid.getTraversalStamp();
     }
 }
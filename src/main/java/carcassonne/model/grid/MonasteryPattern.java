@@ -9,10 +9,16 @@ import static carcassonne.model.terrain.TerrainType.MONASTERY;
 import java.util.List;
 
 /**
- * This class represents a specific kind of grid pattern, the grid patterns for the terrain type MONASTERY.
+ * This class represents a specific kind of grid pattern, the grid patterns for the terrain type MONASTERY. The size and
+ * the completion of the pattern are taken from the occupied neighbor counter of the monastery spot when the pattern is
+ * created. The neighboring spots are only collected when they are requested. Creating the pattern does not tag the
+ * monastery spot, so monastery patterns can be created concurrently.
  * @author Timur Saglam
  */
 public class MonasteryPattern extends GridPattern {
+    private final GridSpot monasterySpot;
+    private final int size;
+    private boolean neighborsAdded;
 
     /**
      * Simple constructor that creates the pattern.
@@ -23,16 +29,25 @@ public class MonasteryPattern extends GridPattern {
         if (spot.getTile().getTerrain(CENTER) != MONASTERY) {
             throw new IllegalArgumentException("Can't create monastery pattern from non monastery tile");
         }
-        buildPattern(spot);
+        setOrigin(spot, CENTER, PatternEvent.NO_COMPONENT);
+        monasterySpot = spot;
+        add(spot); // add monastery
+        int occupiedNeighbors = spot.getOccupiedNeighbors();
+        size = 1 + occupiedNeighbors;
+        complete = occupiedNeighbors == GridDirection.neighbors().size();
     }
 
-    private void buildPattern(GridSpot monasterySpot) {
-        List<GridSpot> neighbors = monasterySpot.getGrid().getNeighbors(monasterySpot, false, GridDirection.neighbors());
-        add(monasterySpot); // add monastery
-        monasterySpot.setTag(CENTER, this);
-        containedSpots.addAll(neighbors);
-        if (neighbors.size() == GridDirection.neighbors().size()) {
-            complete = true;
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    protected List<GridSpot> getContainedSpots() {
+        if (!neighborsAdded) {
+            containedSpots.addAll(monasterySpot.getGrid().getNeighbors(monasterySpot, false, GridDirection.neighbors()));
+            neighborsAdded = true;
         }
+        return containedSpots;
     }
 }
@@ -0,0 +1,110 @@
+package carcassonne.model.grid;
+
+import java.awt.Rectangle;
+
+/**
+ * Counts the occupied spots of a grid in total, per row, and per column, and tracks the bounding box of the occupied
+ * spots. All counts are updated with every placement and removal, which makes them available in constant time.
+ * @author Timur Saglam
+ */
+final class OccupancyCounter {
+    private final int[] rowCounts;
+    private final int[] columnCounts;
+    private int occupiedSpots;
+    private int minX;
+    private int maxX;
+    private int minY;
+    private int maxY;
+
+    /**
+     * Creates a counter for an empty grid.
+     * @param width is the width of the grid.
+     * @param height is the height of the grid.
+     */
+    OccupancyCounter(int width, int height) {
+        rowCounts = new int[height];
+        columnCounts = new int[width];
+    }
+
+    /**
+     * Returns the bounding box of the occupied spots.
+     * @return the bounding box in grid coordinates, or null if no spot is occupied.
+     */
+    Rectangle getBoundingBox() {
+        if (occupiedSpots == 0) {
+            return null;
+        }
+        return new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1);
+    }
+
+    /**
+     * Returns the number of occupied spots in a column.
+     * @param x is the x coordinate of the column.
+     * @return the number of occupied spots.
+     */
+    int getColumnCount(int x) {
+        return columnCounts[x];
+    }
+
+    /**
+     * Returns the number of occupied spots.
+     * @return the number of occupied spots.
+     */
+    int getOccupiedSpots() {
+        return occupiedSpots;
+    }
+
+    /**
+     * Returns the number of occupied spots in a row.
+     * @param y is the y coordinate of the row.
+     * @return the number of occupied spots.
+     */
+    int getRowCount(int y) {
+        return rowCounts[y];
+    }
+
+    /**
+     * Counts a newly occupied spot.
+     * @param x is the x coordinate of the spot.
+     * @param y is the y coordinate of the spot.
+     */
+    void add(int x, int y) {
+        if (occupiedSpots == 0) {
+            minX = maxX = x;
+            minY = maxY = y;
+        } else {
+            minX = Math.min(minX, x);
+            maxX = Math.max(maxX, x);
+            minY = Math.min(minY, y);
+            maxY = Math.max(maxY, y);
+        }
+        occupiedSpots++;
+        rowCounts[y]++;
+        columnCounts[x]++;
+    }
+
+    /**
+     * Removes a spot that is free again from the counts.
+     * @param x is the x coordinate of the spot.
+     * @param y is the y coordinate of the spot.
+     */
+    void remove(int x, int y) {
+        occupiedSpots--;
+        rowCounts[y]--;
+        columnCounts[x]--;
+        if (occupiedSpots > 0) { // shrink the bounding box past empty rows and columns
+            while (columnCounts[minX] == 0) {
+                minX++;
+            }
+            while (columnCounts[maxX] == 0) {
+                maxX--;
+            }
+            while (rowCounts[minY] == 0) {
+                minY++;
+            }
+            while (rowCounts[maxY] == 0) {
+                maxY--;
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package carcassonne.model.grid;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.RecursiveTask;
+
+import carcassonne.model.terrain.TerrainType;
+
+/**
+ * Fork-join task that creates the occupied patterns of a rectangular region of chunks of a grid. Regions with more than
+ * a few chunks are split in half along their longer side. Every region creates the patterns of the meeples on its spots
+ * from the read-only data of the pattern engine, without tagging any spots. Castle, road and field patterns that cross
+ * the border of two regions are created by both regions and merged by their pattern engine component, keeping the
+ * pattern of the first meeple in row order. The grid must not change while the task runs.
+ * @author Timur Saglam
+ */
+final class OccupiedPatternScan extends RecursiveTask<Map<Long, OccupiedPatternScan.Occupation>> {
+    private static final long serialVersionUID = 4129083456518215730L;
+    private static final int MAXIMAL_REGION_CHUNKS = 4;
+
+    private final transient Grid grid;
+    private final int minChunkX;
+    private final int minChunkY;
+    private final int maxChunkX;
+    private final int maxChunkY;
+
+    /**
+     * Creates a task for a region of chunks.
+     * @param grid is the grid to scan.
+     * @param minChunkX is the smallest chunk x coordinate of the region.
+     * @param minChunkY is the smallest chunk y coordinate of the region.
+     * @param maxChunkX is the largest chunk x coordinate of the region.
+     * @param maxChunkY is the largest chunk y coordinate of the region.
+     */
+    OccupiedPatternScan(Grid grid, int minChunkX, int minChunkY, int maxChunkX, int maxChunkY) {
+        this.grid = grid;
+        this.minChunkX = minChunkX;
+        this.minChunkY = minChunkY;
+        this.maxChunkX = maxChunkX;
+        this.maxChunkY = maxChunkY;
+    }
+
+    @Override
+    protected Map<Long, Occupation> compute() {
+        int columns = maxChunkX - minChunkX + 1;
+        int rows = maxChunkY - minChunkY + 1;
+        if (columns * rows <= MAXIMAL_REGION_CHUNKS) {
+            return scanRegion();
+        }
+        OccupiedPatternScan first;
+        OccupiedPatternScan second;
+        if (columns >= rows) {
+            int middle = minChunkX + columns / 2;
+            first = new OccupiedPatternScan(grid, minChunkX, minChunkY, middle - 1, maxChunkY);
+            second = new OccupiedPatternScan(grid, middle, minChunkY, maxChunkX, maxChunkY);
+        } else {
+            int middle = minChunkY + rows / 2;
+            first = new OccupiedPatternScan(grid, minChunkX, minChunkY, maxChunkX, middle - 1);
+            second = new OccupiedPatternScan(grid, minChunkX, middle, maxChunkX, maxChunkY);
+        }
+        second.fork();
+        Map<Long, Occupation> patterns = first.compute();
+        second.join().forEach((key, occupation) -> patterns.merge(key, occupation, Occupation::first)); // border merge
+        return patterns;
+    }
+
+    private Map<Long, Occupation> scanRegion() {
+        Map<Long, GridSpot> firstSpots = new HashMap<>(); // spots of the first meeples by pattern key
+        for (int chunkY = minChunkY; chunkY <= maxChunkY; chunkY++) {
+            for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+                GridSpot[] chunk = grid.getChunk(Grid.chunkKey(chunkX << Grid.CHUNK_BITS, chunkY << Grid.CHUNK_BITS));
+                for (int index = 0; chunk != null && index < chunk.length; index++) {
+                    GridSpot spot = chunk[index];
+                    if (spot != null && spot.isOccupied() && spot.getTile().hasMeeple()) {
+                        firstSpots.merge(keyOf(spot), spot, (first, second) -> orderOf(first) <= orderOf(second) ? first : second);
+                    }
+                }
+            }
+        }
+        Map<Long, Occupation> patterns = new HashMap<>();
+        int[] castleStamps = null; // stamps of this region, as the stamps of the engine must not be shared
+        for (Map.Entry<Long, GridSpot> entry : firstSpots.entrySet()) {
+            GridSpot spot = entry.getValue();
+            GridDirection position = spot.getTile().getMeeple().getPosition();
+            TerrainType terrain = spot.getTile().getTerrain(position);
+            GridPattern pattern;
+            if (terrain == TerrainType.MONASTERY) {
+                pattern = new MonasteryPattern(spot);
+            } else if (terrain == TerrainType.FIELDS) {
+                if (castleStamps == null) {
+                    castleStamps = new int[grid.getPatternEngine().getNodeCount()];
+                }
+                pattern = new FieldsPattern(spot, position, castleStamps);
+            } else {
+                pattern = new CastleAndRoadPattern(spot, position, terrain);
+            }
+            patterns.put(entry.getKey(), new Occupation(orderOf(spot), pattern));
+        }
+        return patterns;
+    }
+
+    /**
+     * Returns the key of the pattern of the meeple on a spot, which is the pattern engine component for castles, roads and
+     * fields. Monasteries are only part of the region of their spot and use the complement of its packed coordinates.
+     */
+    private long keyOf(GridSpot spot) {
+        GridDirection position = spot.getTile().getMeeple().getPosition();
+        if (spot.getTile().getTerrain(position) == TerrainType.MONASTERY) {
+            return ~Grid.packCoordinates(spot.getX(), spot.getY());
+        }
+        PatternEngine engine = grid.getPatternEngine();
+        return engine.find(engine.nodeAt(spot, position));
+    }
+
+    private static long orderOf(GridSpot spot) { // row order of the spots
+        return (long) spot.getY() << Integer.SIZE | spot.getX();
+    }
+
+    /**
+     * Occupied pattern of a region with the row order of the spot of the meeple it was created from.
+     * @param order is the row order of the spot.
+     * @param pattern is the occupied pattern.
+     */
+    record Occupation(long order, GridPattern pattern) {
+        /**
+         * Returns the occupation of two occupations of the same pattern that was created from the first meeple.
+         * @param first is the first occupation.
+         * @param second is the second occupation.
+         * @return the occupation with the lower row order.
+         */
+        static Occupation first(Occupation first, Occupation second) {
+            return first.order <= second.order ? first : second;
+        }
+    }
+}
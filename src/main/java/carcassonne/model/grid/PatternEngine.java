@@ -0,0 +1,687 @@
+package carcassonne.model.grid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+import carcassonne.model.Meeple;
+import carcassonne.model.terrain.RotationDirection;
+import carcassonne.model.terrain.TerrainType;
+import carcassonne.model.tile.Tile;
+import carcassonne.settings.GameSettings;
+
+/**
+ * Persistent pattern engine of a grid. It keeps the castle, road and field segments of all placed tiles in a union-find
+ * structure, where every connected component represents one castle, road or field pattern. Each component root holds the
+ * number of segments, open edges, emblems and meeples per player of its component, which allows creating patterns as
+ * cheap views instead of traversing the grid. Field components additionally hold a list of the castle segments they
+ * touch, which resolve to the current castle components when a field is scored. In reverse, castle components hold a
+ * list of the field segments they touch, which resolve to the fields whose score changes with the castle. Placing a tile merges components in
+ * logarithmic time. The engine does not use path compression, which allows undoing the placement of the last tile by
+ * replaying a journal backwards.
+ * @author Timur Saglam
+ */
+final class PatternEngine {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int PLAYERS = GameSettings.MAXIMAL_PLAYERS;
+    private static final int NO_NODE = -1;
+
+    private final Grid grid;
+    // node data, aggregated values are the sums over the subtree of a node:
+    private int[] parent;
+    private int[] segments;
+    private int[] openEdges;
+    private int[] emblems;
+    private int[] meeples; // PLAYERS entries per node
+    private int[] nextMember; // circular list of the members of a component
+    private int[] positions; // bit mask of the tile positions of a segment
+    private TerrainType[] terrain;
+    private GridSpot[] location;
+    private int[] castleStamps; // stamps of castle roots that were already counted for a field
+    private int castleStamp; // stamp of the current count of adjacent castles
+    private int nodeCount;
+    // castle references of field nodes and field references of castle nodes, every field and castle node owns a circular
+    // list starting with a sentinel reference:
+    private int[] references;
+    private int[] nextReference;
+    private int[] referenceHead;
+    private int referenceCount;
+    // journal for undoing placements, unions are stored as the child node, open edge closings as the complement:
+    private int[] journal;
+    private int journalSize;
+    private final List<GridSpot> placedSpots;
+    private int[] journalStarts;
+    private int[] nodeStarts;
+    private int[] referenceStarts;
+
+    /**
+     * Creates an empty pattern engine.
+     * @param grid is the grid whose patterns are tracked.
+     */
+    PatternEngine(Grid grid) {
+        this.grid = grid;
+        placedSpots = new ArrayList<>();
+        clear();
+    }
+
+    /**
+     * Finds the root node of the component of a node.
+     * @param node is the node.
+     * @return the root node.
+     */
+    int find(int node) {
+        int current = node;
+        while (parent[current] != current) {
+            current = parent[current];
+        }
+        return current;
+    }
+
+    /**
+     * Counts the components that existed before the last placement and were merged into a component of the last placed
+     * tile. Every union of the placement either merged one of these components or one of the new segments of the tile.
+     * @param root is the root node of a component of the last placed tile.
+     * @return the number of merged components, zero if the component was created by the last placement.
+     */
+    int countMergedComponents(int root) {
+        int last = placedSpots.size() - 1;
+        int unions = 0;
+        for (int index = journalStarts[last]; index < journalSize; index++) {
+            if (journal[index] >= 0 && find(journal[index]) == root) {
+                unions++;
+            }
+        }
+        int newSegments = 0;
+        for (int node = nodeStarts[last]; node < nodeCount; node++) {
+            if (find(node) == root) {
+                newSegments++;
+            }
+        }
+        return unions + 1 - newSegments;
+    }
+
+    /**
+     * Calls an action for every meeple that is placed on a segment of a component.
+     * @param root is the root node of the component.
+     * @param action is the action to call.
+     */
+    void forEachMeeple(int root, Consumer<Meeple> action) {
+        if (getMeeples(root) > 0) {
+            int member = root;
+            do {
+                Meeple meeple = location[member].getTile().getMeeple();
+                if (meeple != null && contains(member, meeple.getPosition())) {
+                    action.accept(meeple);
+                }
+                member = nextMember[member];
+            } while (member != root);
+        }
+    }
+
+    /**
+     * Counts the complete castle components that are adjacent to a field component. Every castle is only counted once,
+     * even if several segments of the field touch it, as counted castle roots are marked with the stamp of the count.
+     * Complete castles cannot be merged anymore, so their roots identify them as long as they are complete.
+     * @param root is the root node of the field component.
+     * @return the number of distinct complete adjacent castles.
+     */
+    int countCompleteAdjacentCastles(int root) {
+        if (castleStamp == Integer.MAX_VALUE) {
+            Arrays.fill(castleStamps, 0);
+            castleStamp = 0;
+        }
+        return countCompleteAdjacentCastles(root, castleStamps, ++castleStamp);
+    }
+
+    /**
+     * Counts the complete castle components that are adjacent to a field component with stamps that are owned by the
+     * caller, which allows counting concurrently as the engine is only read. The root of the field is used as stamp, so
+     * every field component may only be counted once with the same stamps.
+     * @param root is the root node of the field component.
+     * @param stamps are the castle stamps of the caller, which are initially zero and cover all nodes of the engine.
+     * @return the number of distinct complete adjacent castles.
+     * @see #getNodeCount()
+     */
+    int countCompleteAdjacentCastles(int root, int[] stamps) {
+        return countCompleteAdjacentCastles(root, stamps, root + 1);
+    }
+
+    /**
+     * Returns the number of nodes, which is the number of castle, road and field segments of all placed tiles.
+     * @return the number of nodes.
+     */
+    int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Calls an action for the root node of every field component that is adjacent to a castle component. A field may be
+     * passed multiple times if several of its segments touch the castle.
+     * @param root is the root node of the castle component.
+     * @param action is the action to call.
+     */
+    void forEachAdjacentField(int root, IntConsumer action) {
+        int head = referenceHead[root];
+        for (int reference = nextReference[head]; reference != head; reference = nextReference[reference]) {
+            if (references[reference] != NO_NODE) { // skip the sentinels of merged castle nodes
+                action.accept(find(references[reference]));
+            }
+        }
+    }
+
+    /**
+     * Determines the dominant players of a component, which are the players with the most meeples on it.
+     * @param root is the root node of the component.
+     * @return the bit mask of the numbers of the dominant players, 0 if the component is not occupied.
+     */
+    int getDominantPlayerMask(int root) {
+        int mask = 0;
+        int maximalMeeples = 1;
+        for (int player = 0; player < PLAYERS; player++) {
+            int count = meeples[root * PLAYERS + player];
+            if (count > maximalMeeples) {
+                maximalMeeples = count;
+                mask = 1 << player;
+            } else if (count == maximalMeeples) {
+                mask |= 1 << player;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the emblems of a component.
+     * @param root is the root node of the component.
+     * @return the number of segments with an emblem.
+     */
+    int getEmblems(int root) {
+        return emblems[root];
+    }
+
+    /**
+     * Returns the total number of meeples on a component.
+     * @param root is the root node of the component.
+     * @return the number of meeples.
+     */
+    int getMeeples(int root) {
+        int sum = 0;
+        for (int player = 0; player < PLAYERS; player++) {
+            sum += meeples[root * PLAYERS + player];
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the number of segments of a component, which is the number of tiles that are counted for the score.
+     * @param root is the root node of the component.
+     * @return the number of segments.
+     */
+    int getSegments(int root) {
+        return segments[root];
+    }
+
+    /**
+     * Returns the spots of all segments of a component. Tiles that contribute multiple segments appear multiple times.
+     * @param root is the root node of the component.
+     * @return the list of spots.
+     */
+    List<GridSpot> getSpots(int root) {
+        List<GridSpot> spots = new ArrayList<>(segments[root]);
+        int member = root;
+        do {
+            spots.add(location[member]);
+            member = nextMember[member];
+        } while (member != root);
+        return spots;
+    }
+
+    /**
+     * Returns the spot of the tile of a segment.
+     * @param node is the node of the segment.
+     * @return the spot.
+     */
+    GridSpot getLocation(int node) {
+        return location[node];
+    }
+
+    /**
+     * Returns one of the tile positions of a segment.
+     * @param node is the node of the segment.
+     * @return the first position of the segment.
+     */
+    GridDirection getPosition(int node) {
+        return GridDirection.values()[Integer.numberOfTrailingZeros(positions[node])];
+    }
+
+    /**
+     * Returns the terrain type of a segment.
+     * @param node is the node of the segment.
+     * @return the terrain type, which is either castle, road or fields.
+     */
+    TerrainType getTerrain(int node) {
+        return terrain[node];
+    }
+
+    /**
+     * Checks whether a node exists and is the root node of its component.
+     * @param node is the node to check.
+     * @return true if it is a root node.
+     */
+    boolean isRoot(int node) {
+        return node < nodeCount && parent[node] == node;
+    }
+
+    /**
+     * Checks whether a component is complete, meaning it has no open edges.
+     * @param root is the root node of the component.
+     * @return true if it is complete.
+     */
+    boolean isComplete(int root) {
+        return openEdges[root] == 0;
+    }
+
+    /**
+     * Returns the node of the segment on a specific position of a placed tile.
+     * @param spot is the spot of the tile.
+     * @param position is the position on the tile.
+     * @return the node or -1 if there is no castle, road or field on that position.
+     */
+    int nodeAt(GridSpot spot, GridDirection position) {
+        int[] nodes = spot.getPatternNodes();
+        return nodes == null ? NO_NODE : nodes[position.ordinal()];
+    }
+
+    /**
+     * Checks whether a spot is the spot of the last placed tile.
+     * @param spot is the spot to check.
+     * @return true if the last placed tile was placed on the spot.
+     */
+    boolean isLastPlaced(GridSpot spot) {
+        return !placedSpots.isEmpty() && placedSpots.getLast() == spot;
+    }
+
+    /**
+     * Updates the meeple counts after a meeple was placed or removed.
+     * @param spot is the spot of the tile with the meeple.
+     * @param meeple is the meeple.
+     * @param delta is 1 for placed and -1 for removed meeples.
+     */
+    void updateMeeple(GridSpot spot, Meeple meeple, int delta) {
+        int node = nodeAt(spot, meeple.getPosition());
+        if (node != NO_NODE) {
+            int offset = meeple.getOwner().getNumber();
+            for (int current = node; true; current = parent[current]) {
+                meeples[current * PLAYERS + offset] += delta;
+                if (parent[current] == current) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the segments of a newly placed tile and merges them with the neighboring components.
+     * @param spot is the spot where the tile was placed.
+     */
+    void place(GridSpot spot) {
+        ensureStackCapacity();
+        journalStarts[placedSpots.size()] = journalSize;
+        nodeStarts[placedSpots.size()] = nodeCount;
+        referenceStarts[placedSpots.size()] = referenceCount;
+        placedSpots.add(spot);
+        addSegments(spot);
+    }
+
+    /**
+     * Removes the segments of a tile that was removed from its spot. Undoes the placement if it was the last placed tile,
+     * otherwise rebuilds the engine from the remaining tiles.
+     * @param spot is the spot where the tile is removed.
+     */
+    void remove(GridSpot spot) {
+        int last = placedSpots.size() - 1;
+        if (last >= 0 && placedSpots.get(last) == spot) {
+            undo(journalStarts[last], nodeStarts[last]);
+            referenceCount = referenceStarts[last];
+            placedSpots.remove(last);
+            spot.setPatternNodes(null);
+        } else if (placedSpots.remove(spot)) {
+            spot.setPatternNodes(null);
+            rebuild();
+        }
+    }
+
+    private void addSegments(GridSpot spot) {
+        Tile tile = spot.getTile();
+        int[] nodes = new int[GridDirection.values().length];
+        Arrays.fill(nodes, NO_NODE);
+        spot.setPatternNodes(nodes);
+        for (GridDirection position : GridDirection.values()) {
+            TerrainType type = tile.getTerrain(position);
+            if ((type == TerrainType.CASTLE || type == TerrainType.ROAD || type == TerrainType.FIELDS) && nodes[position.ordinal()] == NO_NODE) {
+                int node = createNode(spot, type, tile.hasEmblem());
+                for (GridDirection other : GridDirection.values()) {
+                    if (tile.hasConnection(position, other)) {
+                        nodes[other.ordinal()] = node;
+                        positions[node] |= 1 << other.ordinal();
+                    }
+                }
+            }
+        }
+        for (GridDirection position : GridDirection.values()) { // references are added before any union of the tile
+            int node = nodes[position.ordinal()];
+            if (node != NO_NODE && terrain[node] == TerrainType.FIELDS && referenceHead[node] == NO_NODE) {
+                addCastleReferences(spot, node);
+            }
+        }
+        for (GridDirection direction : GridDirection.directNeighbors()) {
+            int node = nodes[direction.ordinal()];
+            if (node != NO_NODE && terrain[node] != TerrainType.FIELDS) {
+                connect(spot, node, direction);
+            }
+        }
+        for (GridDirection position : GridDirection.values()) {
+            int node = nodes[position.ordinal()];
+            if (node != NO_NODE && terrain[node] == TerrainType.FIELDS) {
+                connectField(spot, node, position);
+            }
+        }
+        if (tile.hasMeeple()) {
+            updateMeeple(spot, tile.getMeeple(), 1);
+        }
+    }
+
+    private void connect(GridSpot spot, int node, GridDirection direction) {
+        GridSpot neighbor = grid.getNeighbor(spot, direction);
+        if (neighbor == null || neighbor.getPatternNodes() == null) { // neighbor is not added yet while rebuilding
+            changeOpenEdges(node, 1); // open side, pattern cannot be complete
+        } else {
+            int neighborNode = nodeAt(neighbor, direction.opposite());
+            if (neighborNode != NO_NODE && terrain[neighborNode] == terrain[node]) {
+                changeOpenEdges(neighborNode, -1); // the open side of the neighbor is now closed
+                journal(~neighborNode);
+                union(node, neighborNode);
+            }
+        }
+    }
+
+    private void connectField(GridSpot spot, int node, GridDirection position) {
+        for (GridDirection direction : getFieldConnections(position, spot.getTile())) {
+            GridSpot neighbor = grid.getNeighbor(spot, direction);
+            if (neighbor != null) {
+                int neighborNode = nodeAt(neighbor, getFieldOpposite(position, direction));
+                if (neighborNode != NO_NODE && terrain[neighborNode] == TerrainType.FIELDS) {
+                    union(node, neighborNode);
+                }
+            }
+        }
+    }
+
+    // Adds the castle segments of the tile that are directly adjacent to any position of a field segment, and the field
+    // segment to the references of these castle segments.
+    private void addCastleReferences(GridSpot spot, int node) {
+        int head = createReference(NO_NODE); // sentinel
+        referenceHead[node] = head;
+        int[] nodes = spot.getPatternNodes();
+        for (GridDirection position : GridDirection.values()) {
+            if (contains(node, position)) {
+                for (GridDirection adjacent : getAdjacentPositions(position)) {
+                    int castle = nodes[adjacent.ordinal()];
+                    if (castle != NO_NODE && terrain[castle] == TerrainType.CASTLE && !isReferenced(head, castle)) {
+                        addReference(head, castle);
+                        addReference(referenceHead[castle], node);
+                    }
+                }
+            }
+        }
+    }
+
+    private void addReference(int head, int node) {
+        int reference = createReference(node);
+        nextReference[reference] = nextReference[head];
+        nextReference[head] = reference;
+    }
+
+    private boolean isReferenced(int head, int castle) {
+        for (int reference = nextReference[head]; reference != head; reference = nextReference[reference]) {
+            if (references[reference] == castle) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int countCompleteAdjacentCastles(int root, int[] stamps, int stamp) {
+        int count = 0;
+        int head = referenceHead[root];
+        for (int reference = nextReference[head]; reference != head; reference = nextReference[reference]) {
+            if (references[reference] != NO_NODE) { // skip the sentinels of merged field nodes
+                int castle = find(references[reference]);
+                if (openEdges[castle] == 0 && stamps[castle] != stamp) {
+                    stamps[castle] = stamp;
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private boolean contains(int node, GridDirection position) {
+        return (positions[node] & 1 << position.ordinal()) != 0;
+    }
+
+    private void changeOpenEdges(int node, int delta) {
+        for (int current = node; true; current = parent[current]) {
+            openEdges[current] += delta;
+            if (parent[current] == current) {
+                break;
+            }
+        }
+    }
+
+    private void clear() {
+        parent = new int[INITIAL_CAPACITY];
+        segments = new int[INITIAL_CAPACITY];
+        openEdges = new int[INITIAL_CAPACITY];
+        emblems = new int[INITIAL_CAPACITY];
+        meeples = new int[INITIAL_CAPACITY * PLAYERS];
+        nextMember = new int[INITIAL_CAPACITY];
+        positions = new int[INITIAL_CAPACITY];
+        terrain = new TerrainType[INITIAL_CAPACITY];
+        location = new GridSpot[INITIAL_CAPACITY];
+        castleStamps = new int[INITIAL_CAPACITY];
+        journal = new int[INITIAL_CAPACITY];
+        journalStarts = new int[INITIAL_CAPACITY];
+        nodeStarts = new int[INITIAL_CAPACITY];
+        referenceStarts = new int[INITIAL_CAPACITY];
+        references = new int[INITIAL_CAPACITY];
+        nextReference = new int[INITIAL_CAPACITY];
+        referenceHead = new int[INITIAL_CAPACITY];
+        nodeCount = 0;
+        journalSize = 0;
+        referenceCount = 0;
+    }
+
+    private int createNode(GridSpot spot, TerrainType type, boolean emblem) {
+        if (nodeCount == parent.length) {
+            int capacity = parent.length * 2;
+            parent = Arrays.copyOf(parent, capacity);
+            segments = Arrays.copyOf(segments, capacity);
+            openEdges = Arrays.copyOf(openEdges, capacity);
+            emblems = Arrays.copyOf(emblems, capacity);
+            meeples = Arrays.copyOf(meeples, capacity * PLAYERS);
+            nextMember = Arrays.copyOf(nextMember, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+            terrain = Arrays.copyOf(terrain, capacity);
+            location = Arrays.copyOf(location, capacity);
+            castleStamps = Arrays.copyOf(castleStamps, capacity);
+            referenceHead = Arrays.copyOf(referenceHead, capacity);
+        }
+        int node = nodeCount++;
+        parent[node] = node;
+        segments[node] = 1;
+        openEdges[node] = 0;
+        emblems[node] = emblem ? 1 : 0;
+        Arrays.fill(meeples, node * PLAYERS, (node + 1) * PLAYERS, 0);
+        nextMember[node] = node;
+        positions[node] = 0;
+        terrain[node] = type;
+        location[node] = spot;
+        castleStamps[node] = 0;
+        referenceHead[node] = type == TerrainType.CASTLE ? createReference(NO_NODE) : NO_NODE; // fields add their sentinel later
+        return node;
+    }
+
+    private int createReference(int node) {
+        if (referenceCount == references.length) {
+            references = Arrays.copyOf(references, referenceCount * 2);
+            nextReference = Arrays.copyOf(nextReference, referenceCount * 2);
+        }
+        int reference = referenceCount++;
+        references[reference] = node;
+        nextReference[reference] = reference;
+        return reference;
+    }
+
+    private void ensureStackCapacity() {
+        if (placedSpots.size() == journalStarts.length) {
+            journalStarts = Arrays.copyOf(journalStarts, journalStarts.length * 2);
+            nodeStarts = Arrays.copyOf(nodeStarts, nodeStarts.length * 2);
+            referenceStarts = Arrays.copyOf(referenceStarts, referenceStarts.length * 2);
+        }
+    }
+
+    private void journal(int entry) {
+        if (journalSize == journal.length) {
+            journal = Arrays.copyOf(journal, journal.length * 2);
+        }
+        journal[journalSize++] = entry;
+    }
+
+    private void rebuild() {
+        List<GridSpot> remainingSpots = new ArrayList<>(placedSpots);
+        remainingSpots.forEach(it -> it.setPatternNodes(null)); // the nodes of the old components are invalid
+        placedSpots.clear();
+        clear();
+        remainingSpots.forEach(this::place);
+    }
+
+    private void undo(int journalStart, int nodeStart) {
+        while (journalSize > journalStart) {
+            int entry = journal[--journalSize];
+            if (entry >= 0) {
+                split(entry);
+            } else {
+                changeOpenEdges(~entry, 1);
+            }
+        }
+        for (int node = nodeStart; node < nodeCount; node++) {
+            location[node] = null; // allow garbage collection of removed tiles
+        }
+        nodeCount = nodeStart;
+    }
+
+    private void union(int node, int other) {
+        int root = find(node);
+        int otherRoot = find(other);
+        if (root != otherRoot) {
+            int child = segments[root] < segments[otherRoot] ? root : otherRoot; // union by size
+            int newRoot = child == root ? otherRoot : root;
+            parent[child] = newRoot;
+            aggregate(newRoot, child, 1);
+            swapMembers(newRoot, child);
+            swapReferences(newRoot, child);
+            journal(child);
+        }
+    }
+
+    private void split(int child) {
+        int root = parent[child];
+        swapMembers(root, child);
+        swapReferences(root, child);
+        aggregate(root, child, -1);
+        parent[child] = child;
+    }
+
+    private void aggregate(int root, int child, int sign) {
+        segments[root] += sign * segments[child];
+        openEdges[root] += sign * openEdges[child];
+        emblems[root] += sign * emblems[child];
+        for (int player = 0; player < PLAYERS; player++) {
+            meeples[root * PLAYERS + player] += sign * meeples[child * PLAYERS + player];
+        }
+    }
+
+    private void swapMembers(int first, int second) { // splices or splits the circular member lists
+        int temporary = nextMember[first];
+        nextMember[first] = nextMember[second];
+        nextMember[second] = temporary;
+    }
+
+    private void swapReferences(int first, int second) { // splices or splits the circular reference lists
+        if (terrain[first] == TerrainType.FIELDS || terrain[first] == TerrainType.CASTLE) {
+            int firstHead = referenceHead[first];
+            int secondHead = referenceHead[second];
+            int temporary = nextReference[firstHead];
+            nextReference[firstHead] = nextReference[secondHead];
+            nextReference[secondHead] = temporary;
+        }
+    }
+
+    /**
+     * Returns every adjacent position on a tile for a specific initial position.
+     */
+    private static List<GridDirection> getAdjacentPositions(GridDirection position) {
+        List<GridDirection> neighbors = new ArrayList<>();
+        if (position.isSmallerOrEquals(GridDirection.WEST)) {
+            neighbors.add(GridDirection.CENTER); // the classic direction are adjacent to the middle
+        }
+        if (position.isSmallerOrEquals(GridDirection.NORTH_WEST)) { // everything except the middle has these two neighbors:
+            neighbors.add(position.nextDirectionTo(RotationDirection.LEFT)); // counterclockwise adjacent position
+            neighbors.add(position.nextDirectionTo(RotationDirection.RIGHT)); // clockwise adjacent position
+        } else {
+            neighbors.addAll(GridDirection.directNeighbors()); // the middle has the classic directions as neighbors
+        }
+        return neighbors;
+    }
+
+    /**
+     * Gives for a specific tile and a specific position on that tile the directions in which the field connects to. If the
+     * tile has not the terrain field on this position the result list is empty.
+     */
+    private static List<GridDirection> getFieldConnections(GridDirection position, Tile tile) {
+        List<GridDirection> results = new ArrayList<>();
+        if (tile.getTerrain(position) == TerrainType.FIELDS) {
+            if (position.isSmallerOrEquals(GridDirection.WEST)) {
+                results.add(position); // for simple directions just return themselves.
+            } else if (position.isSmallerOrEquals(GridDirection.NORTH_WEST)) {
+                addIfNotCastle(results, tile, position.nextDirectionTo(RotationDirection.LEFT)); // for edges, it depends on
+                addIfNotCastle(results, tile, position.nextDirectionTo(RotationDirection.RIGHT)); // the neighboring directions
+            }
+        }
+        return results;
+    }
+
+    // adds a grid direction to a list if it has no castle terrain at that direction on the tile.
+    private static void addIfNotCastle(List<GridDirection> results, Tile tile, GridDirection next) {
+        if (tile.getTerrain(next) != TerrainType.CASTLE) {
+            results.add(next);
+        }
+    }
+
+    // Returns the position on the grid of a neighboring tile on a direction which is directly in contact with a specific
+    // position of the first tile.
+    private static GridDirection getFieldOpposite(GridDirection position, GridDirection neighborDirection) {
+        if (position.isSmallerOrEquals(GridDirection.WEST)) {
+            return position.opposite(); // top, right, bottom, left are simply inverted
+        }
+        if (position.isSmallerOrEquals(GridDirection.NORTH_WEST)) {
+            if (neighborDirection.isLeftOf(position)) { // neighbor to the left of the corner
+                return position.opposite().nextDirectionTo(RotationDirection.LEFT).nextDirectionTo(RotationDirection.LEFT);
+            }
+            return position.opposite().nextDirectionTo(RotationDirection.RIGHT).nextDirectionTo(RotationDirection.RIGHT);
+        }
+        return position; // middle stays middle
+    }
+}
@@ -0,0 +1,52 @@
+package carcassonne.model.grid;
+
+import java.util.List;
+import java.util.Map;
+
+import carcassonne.model.Meeple;
+import carcassonne.model.Player;
+import carcassonne.model.terrain.TerrainType;
+
+/**
+ * Event in the lifecycle of a grid pattern, which is published by the grid to its {@link PatternListener}s. Events are
+ * only published for placements of actual tiles, not for the temporary placements of the move analysis.
+ * @param type is the type of the event.
+ * @param terrain is the terrain type of the pattern.
+ * @param component is the id of the pattern component in the grid, or -1 for monasteries.
+ * @param spot is a spot of the pattern, which is the placed tile for placement events.
+ * @param position is the position of the pattern on the tile of the spot.
+ * @param meeples are the meeples on the pattern at the time of the event.
+ * @param scoreDeltas are the points of the players, which are the projected points for completed patterns and the
+ * awarded points for disbursed patterns, and otherwise empty.
+ * @author Timur Saglam
+ */
+public record PatternEvent(PatternEventType type, TerrainType terrain, int component, GridSpot spot, GridDirection position, List<Meeple> meeples,
+        Map<Player, Integer> scoreDeltas) {
+
+    /**
+     * Component id of patterns that are not tracked as components, which are monasteries.
+     */
+    public static final int NO_COMPONENT = -1;
+
+    /**
+     * Compact constructor that copies the meeples and score deltas.
+     */
+    public PatternEvent {
+        meeples = List.copyOf(meeples);
+        scoreDeltas = Map.copyOf(scoreDeltas);
+    }
+
+    /**
+     * Creates a new pattern from the current state of the grid, which for example includes meeples that were placed on
+     * the pattern after the event.
+     * @return the new pattern.
+     */
+    public GridPattern createPattern() {
+        return switch (terrain) {
+            case CASTLE, ROAD -> new CastleAndRoadPattern(spot, position, terrain);
+            case FIELDS -> new FieldsPattern(spot, position);
+            case MONASTERY -> new MonasteryPattern(spot);
+            default -> throw new IllegalStateException("There are no patterns of the terrain " + terrain);
+        };
+    }
+}
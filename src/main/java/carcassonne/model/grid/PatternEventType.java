@@ -0,0 +1,28 @@
+package carcassonne.model.grid;
+
+/**
+ * Enumeration for the types of {@link PatternEvent}s in the lifecycle of a grid pattern.
+ * @author Timur Saglam
+ */
+public enum PatternEventType {
+    /**
+     * A new pattern was created by placing a tile that does not connect to any existing pattern of the same terrain.
+     */
+    CREATED,
+    /**
+     * An existing pattern was extended by placing a tile.
+     */
+    EXTENDED,
+    /**
+     * Multiple existing patterns were merged into one by placing a tile.
+     */
+    MERGED,
+    /**
+     * A pattern was completed by placing a tile.
+     */
+    COMPLETED,
+    /**
+     * A pattern was disbursed, which means its score was distributed to the dominant players.
+     */
+    DISBURSED;
+}
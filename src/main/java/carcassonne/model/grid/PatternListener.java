@@ -0,0 +1,14 @@
+package carcassonne.model.grid;
+
+/**
+ * Listener for the lifecycle of the patterns of a {@link Grid}.
+ * @author Timur Saglam
+ */
+@FunctionalInterface
+public interface PatternListener {
+    /**
+     * Notifies the listener about a change of a pattern.
+     * @param event describes the change.
+     */
+    void patternChanged(PatternEvent event);
+}
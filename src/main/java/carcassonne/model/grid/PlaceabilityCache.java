@@ -0,0 +1,104 @@
+package carcassonne.model.grid;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import carcassonne.model.terrain.TerrainProfile;
+import carcassonne.model.tile.TileRotation;
+import carcassonne.model.tile.TileType;
+
+/**
+ * Cache of the placeable tile orientations of the frontier spots of a grid. Every spot holds a bit set with one bit per
+ * tile type and rotation, which includes the enclave rule of the grid. The bit sets only depend on the surrounding spots,
+ * so the grid invalidates the spots around every changed spot. Spots with the same edge signature share the bit set of
+ * the orientations that fit their edges, which is computed once per signature.
+ * @author Timur Saglam
+ */
+final class PlaceabilityCache {
+    private static final int WORD_SHIFT = 6; // 64 bits per long
+    private static final int ROTATIONS = TileRotation.values().length;
+    private static final int ORIENTATIONS = TileType.values().length * ROTATIONS;
+    private static final int[] TILE_SIGNATURES = createTileSignatures(); // edge signatures per orientation
+    private static final long[] NONE = new long[bitSetLength()];
+
+    private final Grid grid;
+    private final Map<Integer, long[]> signatureBits; // orientations that fit a spot signature, never invalidated
+    private final Map<GridSpot, long[]> spotBits; // placeable orientations per spot, including the enclave rule
+
+    /**
+     * Creates an empty cache.
+     * @param grid is the grid whose spots are cached.
+     */
+    PlaceabilityCache(Grid grid) {
+        this.grid = grid;
+        signatureBits = new HashMap<>();
+        spotBits = new HashMap<>();
+    }
+
+    /**
+     * Removes all cached spots, which is required when the placeability of spots changed anywhere on the grid.
+     */
+    void clear() {
+        spotBits.clear();
+    }
+
+    /**
+     * Removes a spot from the cache.
+     * @param spot is the spot whose placeability changed.
+     */
+    void invalidate(GridSpot spot) {
+        spotBits.remove(spot);
+    }
+
+    /**
+     * Checks whether a tile in a specific orientation can be placed on a frontier spot according to the rules of the grid.
+     * @param spot is the frontier spot.
+     * @param type is the type of the tile.
+     * @param rotation is the rotation of the tile.
+     * @return true if it can be placed.
+     */
+    boolean isPlaceable(GridSpot spot, TileType type, TileRotation rotation) {
+        long[] bits = spotBits.get(spot);
+        if (bits == null) {
+            bits = computeSpotBits(spot);
+            spotBits.put(spot, bits);
+        }
+        int orientation = orientationOf(type, rotation);
+        return (bits[orientation >>> WORD_SHIFT] & 1L << orientation) != 0;
+    }
+
+    private long[] computeSpotBits(GridSpot spot) {
+        if (!grid.isAllowingEnclaves() && grid.isClosingFreeSpotsOff(spot)) {
+            return NONE;
+        }
+        return signatureBits.computeIfAbsent(grid.getEdgeSignature(spot), PlaceabilityCache::computeSignatureBits);
+    }
+
+    private static long[] computeSignatureBits(int spotSignature) {
+        long[] bits = new long[bitSetLength()];
+        for (int orientation = 0; orientation < ORIENTATIONS; orientation++) {
+            if (EdgeSignature.matches(spotSignature, TILE_SIGNATURES[orientation])) {
+                bits[orientation >>> WORD_SHIFT] |= 1L << orientation;
+            }
+        }
+        return bits;
+    }
+
+    private static int[] createTileSignatures() {
+        int[] signatures = new int[ORIENTATIONS];
+        for (TileType type : TileType.values()) {
+            for (TileRotation rotation : TileRotation.values()) {
+                signatures[orientationOf(type, rotation)] = TerrainProfile.of(type, rotation).getEdgeSignature();
+            }
+        }
+        return signatures;
+    }
+
+    private static int bitSetLength() {
+        return (ORIENTATIONS + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    private static int orientationOf(TileType type, TileRotation rotation) {
+        return type.ordinal() * ROTATIONS + rotation.ordinal();
+    }
+}
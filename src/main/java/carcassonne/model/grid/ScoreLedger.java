@@ -0,0 +1,232 @@
+package carcassonne.model.grid;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import carcassonne.model.Meeple;
+import carcassonne.model.terrain.TerrainType;
+import carcassonne.settings.GameSettings;
+
+/**
+ * Ledger of the projected scores of a grid, which are the scores the players would receive for their incomplete patterns
+ * if the game ended now. Only occupied patterns contribute to the projected scores, so the ledger stores the
+ * contribution of every occupied incomplete pattern and updates the contributions of the patterns that are affected by
+ * a change of the grid. The contributions are calculated from the components of the {@link PatternEngine} without
+ * creating pattern objects, and a changed castle completion only updates the fields that touch the castle. The projected scores per player and terrain are therefore available at any time.
+ * @author Timur Saglam
+ */
+final class ScoreLedger {
+    private static final int PLAYERS = GameSettings.MAXIMAL_PLAYERS;
+    private static final int TERRAINS = TerrainType.values().length;
+
+    private final Grid grid;
+    private final PatternEngine engine;
+    private final Map<Integer, Contribution> componentContributions; // by the root nodes of castle, road and field components
+    private final Map<GridSpot, Contribution> monasteryContributions; // by the spots of the monasteries
+    private final int[] fullScores; // TERRAINS entries per player, as if shared patterns award the full score
+    private final int[] splitScores; // TERRAINS entries per player, as if shared patterns split the score
+    private final Set<Integer> affectedComponents; // components affected by the current change of the grid
+
+    /**
+     * Creates an empty ledger.
+     * @param grid is the grid whose projected scores are tracked.
+     */
+    ScoreLedger(Grid grid) {
+        this.grid = grid;
+        engine = grid.getPatternEngine();
+        componentContributions = new HashMap<>();
+        monasteryContributions = new HashMap<>();
+        fullScores = new int[PLAYERS * TERRAINS];
+        splitScores = new int[PLAYERS * TERRAINS];
+        affectedComponents = new HashSet<>();
+    }
+
+    /**
+     * Returns the projected score of a player for a terrain type.
+     * @param playerNumber is the number of the player.
+     * @param terrain is the terrain type.
+     * @param splitScore determines if shared patterns are scored by splitting the score or awarding full score.
+     * @return the projected score.
+     */
+    int getScore(int playerNumber, TerrainType terrain, boolean splitScore) {
+        int index = playerNumber * TERRAINS + terrain.ordinal();
+        return splitScore ? splitScores[index] : fullScores[index];
+    }
+
+    /**
+     * Prepares the update of the ledger before a tile is placed on a spot.
+     * @param spot is the spot where the tile will be placed.
+     */
+    void beforePlacement(GridSpot spot) {
+        collectNeighborComponents(spot);
+    }
+
+    /**
+     * Updates the ledger after a tile was placed on a spot.
+     * @param spot is the spot where the tile was placed.
+     */
+    void afterPlacement(GridSpot spot) {
+        collectComponents(spot);
+        collectFieldsOfCompleteCastles(spot); // castles completed by a placement were incomplete before
+        collectNeighborComponents(spot);
+        updateAffectedPatterns(spot);
+    }
+
+    /**
+     * Prepares the update of the ledger before a tile is removed from a spot.
+     * @param spot is the spot where the tile will be removed.
+     */
+    void beforeRemoval(GridSpot spot) {
+        collectComponents(spot);
+        collectFieldsOfCompleteCastles(spot); // castles of a removed tile cannot be complete anymore
+        collectNeighborComponents(spot);
+    }
+
+    /**
+     * Updates the ledger after a tile was removed from a spot.
+     * @param spot is the spot where the tile was removed.
+     * @param rebuilt determines whether the pattern engine was rebuilt, which invalidates all components.
+     */
+    void afterRemoval(GridSpot spot, boolean rebuilt) {
+        if (rebuilt) {
+            rebuildComponents();
+        } else {
+            collectNeighborComponents(spot);
+        }
+        updateAffectedPatterns(spot);
+    }
+
+    /**
+     * Updates the ledger after a meeple was placed on or removed from a spot.
+     * @param spot is the spot of the meeple.
+     * @param meeple is the placed or removed meeple.
+     */
+    void meepleChanged(GridSpot spot, Meeple meeple) {
+        int node = engine.nodeAt(spot, meeple.getPosition());
+        if (node >= 0) {
+            updateComponent(engine.find(node));
+        } else {
+            updateMonastery(spot);
+        }
+    }
+
+    /**
+     * Recalculates all component contributions, which is required after the pattern engine was rebuilt.
+     */
+    private void rebuildComponents() {
+        for (Contribution contribution : componentContributions.values()) {
+            book(contribution, -1);
+        }
+        componentContributions.clear();
+        affectedComponents.clear();
+        for (GridSpot spot : grid.getOccupiedSpots()) {
+            if (spot.getTile().hasMeeple()) {
+                int node = engine.nodeAt(spot, spot.getTile().getMeeple().getPosition());
+                if (node >= 0) {
+                    affectedComponents.add(engine.find(node));
+                }
+            }
+        }
+    }
+
+    private void collectComponents(GridSpot spot) {
+        int[] nodes = spot.getPatternNodes();
+        if (nodes != null) {
+            for (int node : nodes) {
+                if (node >= 0) {
+                    affectedComponents.add(engine.find(node));
+                }
+            }
+        }
+    }
+
+    private void collectFieldsOfCompleteCastles(GridSpot spot) { // only these fields change their score
+        for (int node : spot.getPatternNodes()) {
+            if (node >= 0 && engine.getTerrain(node) == TerrainType.CASTLE && engine.isComplete(engine.find(node))) {
+                engine.forEachAdjacentField(engine.find(node), affectedComponents::add);
+            }
+        }
+    }
+
+    private void collectNeighborComponents(GridSpot spot) {
+        for (GridSpot neighbor : grid.getNeighbors(spot, false, GridDirection.directNeighbors())) {
+            collectComponents(neighbor);
+        }
+    }
+
+    private void updateAffectedPatterns(GridSpot spot) {
+        for (int root : affectedComponents) {
+            updateComponent(root);
+        }
+        updateMonastery(spot);
+        grid.forEachAdjacentMonastery(spot, this::updateMonastery);
+        affectedComponents.clear();
+    }
+
+    private void updateComponent(int root) {
+        Contribution previous = componentContributions.remove(root);
+        if (previous != null) {
+            book(previous, -1);
+        }
+        if (engine.isRoot(root) && engine.getMeeples(root) > 0) {
+            TerrainType terrain = engine.getTerrain(root);
+            int players = engine.getDominantPlayerMask(root);
+            if (terrain == TerrainType.FIELDS) { // fields are never complete, even without open edges
+                int score = FieldsPattern.calculateScore(engine.countCompleteAdjacentCastles(root));
+                addContribution(root, new Contribution(terrain, players, score));
+            } else if (!engine.isComplete(root)) {
+                int score = CastleAndRoadPattern.calculateScore(terrain, engine.getSegments(root), engine.getEmblems(root), false);
+                addContribution(root, new Contribution(terrain, players, score));
+            }
+        }
+    }
+
+    private void addContribution(int root, Contribution contribution) {
+        componentContributions.put(root, contribution);
+        book(contribution, 1);
+    }
+
+    private void updateMonastery(GridSpot spot) {
+        Contribution previous = monasteryContributions.remove(spot);
+        if (previous != null) {
+            book(previous, -1);
+        }
+        if (spot.isOccupied() && spot.getTile().getTerrain(GridDirection.CENTER) == TerrainType.MONASTERY && spot.getTile().hasMeeple()
+                && spot.getTile().getMeeple().getPosition() == GridDirection.CENTER) {
+            int occupiedNeighbors = spot.getOccupiedNeighbors();
+            if (occupiedNeighbors < GridDirection.neighbors().size()) { // the monastery and its neighbors score a point each
+                int players = 1 << spot.getTile().getMeeple().getOwner().getNumber();
+                Contribution contribution = new Contribution(TerrainType.MONASTERY, players, 1 + occupiedNeighbors);
+                monasteryContributions.put(spot, contribution);
+                book(contribution, 1);
+            }
+        }
+    }
+
+    private void book(Contribution contribution, int sign) {
+        for (int mask = contribution.players; mask != 0; mask &= mask - 1) {
+            int index = Integer.numberOfTrailingZeros(mask) * TERRAINS + contribution.terrain.ordinal();
+            fullScores[index] += sign * contribution.fullScore;
+            splitScores[index] += sign * contribution.splitScore;
+        }
+    }
+
+    /**
+     * Contribution of a single pattern to the projected scores of its dominant players.
+     */
+    private static class Contribution {
+        private final TerrainType terrain;
+        private final int players; // bit mask of the numbers of the dominant players
+        private final int fullScore;
+        private final int splitScore;
+
+        Contribution(TerrainType terrain, int players, int fullScore) {
+            this.terrain = terrain;
+            this.players = players;
+            this.fullScore = fullScore;
+            splitScore = GridPattern.divideScore(fullScore, Integer.bitCount(players));
+        }
+    }
+}
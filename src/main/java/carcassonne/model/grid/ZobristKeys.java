@@ -0,0 +1,68 @@
+package carcassonne.model.grid;
+
+import carcassonne.model.tile.TileRotation;
+import carcassonne.model.tile.TileType;
+import carcassonne.model.tile.TileUtil;
+
+/**
+ * Keys for the Zobrist hashing of game positions. A position hash is the XOR of the keys of all placed tiles, all placed
+ * meeples and the player to move, which allows updating it incrementally with every change. Instead of tables with one
+ * random key per spot of the grid, which would be huge for large grids, the keys are derived from the coordinates and
+ * the other components by a fixed 64-bit mixing function. The keys are therefore identical in every run, which allows
+ * persisting position hashes.
+ * @author Timur Saglam
+ */
+public final class ZobristKeys {
+    private static final long TILE_SEED = 0x9E3779B97F4A7C15L;
+    private static final long MEEPLE_SEED = 0xC2B2AE3D27D4EB4FL;
+    private static final long PLAYER_SEED = 0x165667B19E3779F9L;
+
+    private ZobristKeys() {
+        // private constructor ensures non-instantiability!
+    }
+
+    /**
+     * Returns the key for a tile placed on a specific spot. Rotations of a tile type that look identical, as the type is
+     * symmetric, share the same key.
+     * @param x is the x coordinate of the spot.
+     * @param y is the y coordinate of the spot.
+     * @param type is the type of the tile.
+     * @param rotation is the rotation of the tile.
+     * @return the key.
+     */
+    public static long tileKey(int x, int y, TileType type, TileRotation rotation) {
+        int distinctRotation = rotation.ordinal() % TileUtil.rotationLimitFor(type);
+        return mix(TILE_SEED ^ spotBits(x, y) ^ mix(type.ordinal() * TileRotation.values().length + distinctRotation));
+    }
+
+    /**
+     * Returns the key for a meeple placed on a specific spot.
+     * @param x is the x coordinate of the spot.
+     * @param y is the y coordinate of the spot.
+     * @param position is the position of the meeple on the tile of the spot.
+     * @param playerNumber is the number of the player who owns the meeple.
+     * @return the key.
+     */
+    public static long meepleKey(int x, int y, GridDirection position, int playerNumber) {
+        return mix(MEEPLE_SEED ^ spotBits(x, y) ^ mix(position.ordinal() * 64L + playerNumber));
+    }
+
+    /**
+     * Returns the key for the player to move.
+     * @param playerNumber is the number of the player to move.
+     * @return the key.
+     */
+    public static long playerToMoveKey(int playerNumber) {
+        return mix(PLAYER_SEED + playerNumber);
+    }
+
+    private static long spotBits(int x, int y) {
+        return (long) x << 32 | y & 0xFFFFFFFFL;
+    }
+
+    private static long mix(long value) { // finalizer of SplitMix64
+        long result = (value ^ value >>> 30) * 0xBF58476D1CE4E5B9L;
+        result = (result ^ result >>> 27) * 0x94D049BB133111EBL;
+        return result ^ result >>> 31;
+    }
+}
@@ -0,0 +1,127 @@
+package carcassonne.model.terrain;
+
+import carcassonne.model.grid.EdgeSignature;
+import carcassonne.model.grid.GridDirection;
+import carcassonne.model.tile.TileRotation;
+import carcassonne.model.tile.TileType;
+
+/**
+ * Immutable flyweight of the terrain properties of a tile type in a specific rotation. All profiles are computed once
+ * from the {@link TileTerrain} of each tile type when the class is loaded, which makes the connections between positions
+ * and the meeple spots of a tile simple lookups. The terrain types are read from the packed terrain of the tile terrain.
+ * @author Timur Saglam
+ */
+public final class TerrainProfile {
+    private static final int CASTLE_THRESHOLD = 6; // size required for a castle to have an emblem
+    private static final TerrainProfile[][] PROFILES = createProfiles();
+    private final int terrain; // packed terrain types, as in the tile terrain
+    private final int[] connections; // bit masks of the connected positions per position
+    private final int meepleSpots; // bit mask of the positions
+    private final int edgeSignature;
+    private final boolean emblem;
+
+    private TerrainProfile(TileTerrain tileTerrain) {
+        GridDirection[] directions = GridDirection.values();
+        terrain = tileTerrain.getPackedTerrain();
+        connections = new int[directions.length];
+        int meepleSpotMask = 0;
+        int castleSize = 0;
+        for (GridDirection from : directions) {
+            for (GridDirection towards : directions) {
+                if (tileTerrain.isConnected(from, towards)) {
+                    connections[from.ordinal()] |= 1 << towards.ordinal();
+                }
+            }
+            if (tileTerrain.getMeepleSpots().contains(from)) {
+                meepleSpotMask |= 1 << from.ordinal();
+            }
+            if (at(from) == TerrainType.CASTLE) {
+                castleSize++;
+            }
+        }
+        meepleSpots = meepleSpotMask;
+        int signature = EdgeSignature.UNCONSTRAINED;
+        for (GridDirection edge : GridDirection.directNeighbors()) {
+            signature |= EdgeSignature.of(edge, at(edge));
+        }
+        edgeSignature = signature;
+        emblem = castleSize >= CASTLE_THRESHOLD;
+    }
+
+    /**
+     * Returns the terrain profile of a tile type in a specific rotation.
+     * @param type is the tile type.
+     * @param rotation is the rotation of the tile.
+     * @return the shared profile.
+     */
+    public static TerrainProfile of(TileType type, TileRotation rotation) {
+        return PROFILES[type.ordinal()][rotation.ordinal()];
+    }
+
+    /**
+     * return the terrain type on the tile in the specific direction.
+     * @param direction is the specific direction.
+     * @return the terrain type.
+     */
+    public TerrainType at(GridDirection direction) {
+        return TileTerrain.at(terrain, direction);
+    }
+
+    /**
+     * Returns the positions that are connected to a position through the same terrain.
+     * @param from is the position.
+     * @return the bit mask of the connected positions, indexed by the ordinals of the grid directions.
+     */
+    public int getConnections(GridDirection from) {
+        return connections[from.ordinal()];
+    }
+
+    /**
+     * Returns the terrain on the four edges of the profile.
+     * @return the edge signature.
+     * @see EdgeSignature
+     */
+    public int getEdgeSignature() {
+        return edgeSignature;
+    }
+
+    /**
+     * Checks whether the profile has an emblem. Only large castle tiles can have emblems.
+     * @return true if it has an emblem.
+     */
+    public boolean hasEmblem() {
+        return emblem;
+    }
+
+    /**
+     * Checks whether a meeple can be placed on a specific position by its terrain.
+     * @param position is the position on the tile.
+     * @return true if it is a meeple spot.
+     */
+    public boolean hasMeepleSpot(GridDirection position) {
+        return (meepleSpots & 1 << position.ordinal()) != 0;
+    }
+
+    /**
+     * Checks whether two parts of a tile are connected through same terrain.
+     * @param from is the part to check from.
+     * @param towards is the terrain to check to.
+     * @return true if connected, false if not.
+     */
+    public boolean isConnected(GridDirection from, GridDirection towards) {
+        return (connections[from.ordinal()] & 1 << towards.ordinal()) != 0;
+    }
+
+    private static TerrainProfile[][] createProfiles() {
+        TileRotation[] rotations = TileRotation.values();
+        TerrainProfile[][] profiles = new TerrainProfile[TileType.values().length][rotations.length];
+        for (TileType type : TileType.values()) {
+            TileTerrain tileTerrain = new TileTerrain(type);
+            for (TileRotation rotation : rotations) { // the rotations are ordered clockwise
+                profiles[type.ordinal()][rotation.ordinal()] = new TerrainProfile(tileTerrain);
+                tileTerrain.rotateRight();
+            }
+        }
+        return profiles;
+    }
+}
@@ -1,19 +1,13 @@
 package carcassonne.model.terrain;
 
 import static carcassonne.model.grid.GridDirection.CENTER;
-import static carcassonne.model.grid.GridDirection.EAST;
-import static carcassonne.model.grid.GridDirection.NORTH;
 import static carcassonne.model.grid.GridDirection.NORTH_EAST;
-import static carcassonne.model.grid.GridDirection.NORTH_WEST;
-import static carcassonne.model.grid.GridDirection.SOUTH;
-import static carcassonne.model.grid.GridDirection.SOUTH_EAST;
-import static carcassonne.model.grid.GridDirection.SOUTH_WEST;
-import static carcassonne.model.grid.GridDirection.WEST;
 
 import java.awt.Point;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -21,28 +15,43 @@ import java.util.Set;
 import java.util.stream.Stream;
 
 import carcassonne.model.grid.GridDirection;
+import carcassonne.model.tile.TileRotation;
 import carcassonne.model.tile.TileType;
 
 /**
  * Represents the terrain information of a single tile. It consists out of nine different terrain types, one for each
  * grid direction. Every other property, such as the meeple spots and connections between positions, is computed from
- * that information.
+ * that information. The terrain types are packed into a single integer with three bits per direction, ordered by the
+ * ordinals of the directions. Rotating the terrain is a permutation of these bits. The meeple spots of all tile types in
+ * all rotations are computed once when the class is loaded.
  * @author Timur Saglam
  */
 public class TileTerrain {
+    private static final int BITS_PER_DIRECTION = 3;
+    private static final int DIRECTION_MASK = (1 << BITS_PER_DIRECTION) - 1;
+    private static final int SIDES_BITS = 4 * BITS_PER_DIRECTION; // four direct or four indirect neighbors
+    private static final int SIDES_MASK = (1 << SIDES_BITS) - 1;
+    private static final int CORNERS_SHIFT = NORTH_EAST.ordinal() * BITS_PER_DIRECTION;
+    private static final int CENTER_MASK = DIRECTION_MASK << CENTER.ordinal() * BITS_PER_DIRECTION;
+    private static final TerrainType[] TERRAIN_TYPES = TerrainType.values();
+    private static final Map<Integer, Set<GridDirection>> MEEPLE_SPOT_CACHE = createMeepleSpotCache();
     private Set<GridDirection> meepleSpots;
-    private final Map<GridDirection, TerrainType> terrain;
+    private int terrain;
 
     /**
      * Creates a terrain instance with nine terrain types.
      * @param type is the tile type of the terrain.
      */
     public TileTerrain(TileType type) {
-        terrain = new HashMap<>();
-        for (int i = 0; i < GridDirection.values().length; i++) {
-            terrain.put(GridDirection.values()[i], type.getTerrain()[i]);
-        }
-        createMeepleSpots();
+        terrain = pack(type);
+        updateMeepleSpots();
+    }
+
+    /**
+     * Creates a terrain instance from packed terrain types without meeple spots.
+     */
+    private TileTerrain(int terrain) {
+        this.terrain = terrain;
     }
 
     /**
@@ -51,12 +60,22 @@ public class TileTerrain {
      * @return the terrain type, or null if the direction is not mapped.
      */
     public TerrainType at(GridDirection direction) {
-        if (terrain.containsKey(direction)) {
-            return terrain.get(direction);
+        if (direction != null) {
+            return get(direction);
         }
         throw new IllegalArgumentException("TileTerrain not defined at " + direction);
     }
 
+    /**
+     * Returns the terrain type in a specific direction of packed terrain types.
+     * @param packedTerrain are the packed terrain types of a tile, as returned by {@link #getPackedTerrain()}.
+     * @param direction is the specific direction.
+     * @return the terrain type.
+     */
+    public static TerrainType at(int packedTerrain, GridDirection direction) {
+        return TERRAIN_TYPES[packedTerrain >>> direction.ordinal() * BITS_PER_DIRECTION & DIRECTION_MASK];
+    }
+
     /**
      * Returns a set of grid directions, where meeples can be placed on this terrain.
      * @return the set of meeple spots.
@@ -65,6 +84,14 @@ public class TileTerrain {
         return meepleSpots;
     }
 
+    /**
+     * Returns the terrain types of all directions packed into a single integer, with three bits per direction.
+     * @return the packed terrain types.
+     */
+    public int getPackedTerrain() {
+        return terrain;
+    }
+
     /**
      * Checks whether two parts of a tile are connected through same terrain.
      * @param from is the part to check from.
@@ -75,7 +102,7 @@ public class TileTerrain {
         if (isDirectConnected(from, towards) || from != CENTER && towards != CENTER && isIndirectConnected(from, towards)) {
             return true; // is not from or to middle but indirectly connected (counter)clockwise
         }
-        if (terrain.get(from) == TerrainType.FIELDS && terrain.get(towards) == TerrainType.FIELDS) {
+        if (get(from) == TerrainType.FIELDS && get(towards) == TerrainType.FIELDS) {
             return isImplicitlyConnected(from, towards); // is connected through implicit terrain information
         }
         return false;
@@ -85,37 +112,64 @@ public class TileTerrain {
      * Turns a tile 90 degree to the left.
      */
     public void rotateLeft() {
-        rotate(List.of(NORTH, WEST, SOUTH, EAST));
-        rotate(List.of(NORTH_EAST, NORTH_WEST, SOUTH_WEST, SOUTH_EAST));
+        int sides = terrain & SIDES_MASK;
+        int corners = terrain >>> CORNERS_SHIFT & SIDES_MASK;
+        terrain = terrain & CENTER_MASK | rotateSidesLeft(sides) | rotateSidesLeft(corners) << CORNERS_SHIFT;
+        updateMeepleSpots();
     }
 
     /**
      * Turns a tile 90 degree to the right.
      */
     public void rotateRight() {
-        rotate(GridDirection.directNeighbors());
-        rotate(GridDirection.indirectNeighbors());
+        rotateSides();
+        updateMeepleSpots();
+    }
+
+    /**
+     * Rotates the packed terrain types 90 degree to the right without updating the meeple spots.
+     */
+    private void rotateSides() {
+        int sides = terrain & SIDES_MASK;
+        int corners = terrain >>> CORNERS_SHIFT & SIDES_MASK;
+        terrain = terrain & CENTER_MASK | rotateSidesRight(sides) | rotateSidesRight(corners) << CORNERS_SHIFT;
     }
 
     /**
-     * Creates the list of positions on the tile where a meeple can be placed.
+     * Returns the terrain type on the tile in the specific direction by extracting its bits.
      */
-    private void createMeepleSpots() {
-        meepleSpots = new HashSet<>();
+    private TerrainType get(GridDirection direction) {
+        return at(terrain, direction);
+    }
+
+    /**
+     * Updates the meeple spots for the current terrain. They only depend on the terrain, so they are shared between all
+     * tiles with that terrain.
+     */
+    private void updateMeepleSpots() {
+        meepleSpots = MEEPLE_SPOT_CACHE.get(terrain);
+    }
+
+    /**
+     * Creates the set of positions on the tile where a meeple can be placed.
+     */
+    private Set<GridDirection> createMeepleSpots() {
+        Set<GridDirection> spots = EnumSet.noneOf(GridDirection.class);
         for (GridDirection position : GridDirection.values()) { // for every spot
-            if (terrain.get(position) != TerrainType.OTHER) { // if not checked
-                createMeepleSpot(position);
+            if (get(position) != TerrainType.OTHER) { // if not checked
+                createMeepleSpot(position, spots);
             }
         }
-        removeRedundantSpots(GridDirection.directNeighbors(), false); // merge to top, right, bottom, and left
-        removeRedundantSpots(GridDirection.indirectNeighbors(), true); // merge to the corners and add already removed anchors
-        removeRedundantSpots(GridDirection.directNeighbors(), true); // merge one more time
+        removeRedundantSpots(GridDirection.directNeighbors(), false, spots); // merge to top, right, bottom, and left
+        removeRedundantSpots(GridDirection.indirectNeighbors(), true, spots); // merge to the corners and add removed anchors
+        removeRedundantSpots(GridDirection.directNeighbors(), true, spots); // merge one more time
+        return Collections.unmodifiableSet(spots);
     }
 
     /**
      * Creates a single meeple spot.
      */
-    private void createMeepleSpot(GridDirection position) {
+    private void createMeepleSpot(GridDirection position, Set<GridDirection> spots) {
         List<GridDirection> connectedPositions = Stream.of(GridDirection.values()).filter(it -> isConnected(position, it)).toList();
         Point sum = new Point();
         for (GridDirection connectedPosition : connectedPositions) {
@@ -124,9 +178,9 @@ public class TileTerrain {
         }
         GridDirection center = GridDirection.values2D()[(int) Math.round(sum.x / 3.0) + 1][(int) Math.round(sum.y / 3.0) + 1];
         if (isConnected(center, position)) {
-            meepleSpots.add(center); // add the geometrical pattern center
+            spots.add(center); // add the geometrical pattern center
         } else {
-            meepleSpots.add(position); // just add the original position
+            spots.add(position); // just add the original position
         }
     }
 
@@ -134,8 +188,8 @@ public class TileTerrain {
      * Checks if the directions are directly connected through the middle
      */
     private boolean isDirectConnected(GridDirection from, GridDirection towards) {
-        TerrainType middle = terrain.get(CENTER);
-        return terrain.get(from) == middle && terrain.get(towards) == middle;
+        TerrainType middle = get(CENTER);
+        return get(from) == middle && get(towards) == middle;
     }
 
     /**
@@ -157,7 +211,7 @@ public class TileTerrain {
         GridDirection next;
         while (current != towards) { // while not at destination:
             next = current.nextDirectionTo(side); // get the next direction
-            if (terrain.get(current) != terrain.get(next)) {
+            if (get(current) != get(next)) {
                 return false; // check if still connected
             }
             current = next; // set new current
@@ -202,21 +256,20 @@ public class TileTerrain {
     /**
      * removes redundant meeple spots and optionally adds anchor spots.
      */
-    private void removeRedundantSpots(List<GridDirection> anchorDirections, boolean addAnchor) {
+    private void removeRedundantSpots(List<GridDirection> anchorDirections, boolean addAnchor, Set<GridDirection> spots) {
         List<GridDirection> removalList = new LinkedList<>();
         for (GridDirection anchor : anchorDirections) {
             GridDirection left = anchor.nextDirectionTo(RotationDirection.LEFT);
             GridDirection right = anchor.nextDirectionTo(RotationDirection.RIGHT);
-            if (terrain.get(anchor) == terrain.get(left) && terrain.get(anchor) == terrain.get(right) && meepleSpots.contains(left)
-                    && meepleSpots.contains(right)) {
+            if (get(anchor) == get(left) && get(anchor) == get(right) && spots.contains(left) && spots.contains(right)) {
                 removalList.add(left);
                 removalList.add(right);
                 if (addAnchor && !isConnected(anchor, CENTER)) {
-                    meepleSpots.add(anchor);
+                    spots.add(anchor);
                 }
             }
         }
-        removalList.forEach(meepleSpots::remove);
+        removalList.forEach(spots::remove);
     }
 
     /**
@@ -224,7 +277,7 @@ public class TileTerrain {
      * terrain street and is connected to at least two other sides.
      */
     private boolean hasPassingStreet() {
-        return terrain.get(CENTER) == TerrainType.ROAD
+        return get(CENTER) == TerrainType.ROAD
                 && GridDirection.tilePositions().stream().filter(it -> isDirectConnected(CENTER, it)).count() > 2;
     }
 
@@ -233,18 +286,46 @@ public class TileTerrain {
      * towards it.
      */
     private boolean hasNoCastleEntry(GridDirection castlePosition) {
-        return terrain.get(castlePosition) == TerrainType.CASTLE && (terrain.get(CENTER) == TerrainType.OTHER || hasPassingStreet());
+        return get(castlePosition) == TerrainType.CASTLE && (get(CENTER) == TerrainType.OTHER || hasPassingStreet());
     }
 
     /**
-     * Rotates the terrain at the specified directions clockwise.
-     * @param directions are the specified directions.
+     * Computes the meeple spots of all tile types in all rotations, keyed by their packed terrain types.
      */
-    private void rotate(List<GridDirection> directions) {
-        TerrainType temporary = terrain.get(directions.getLast()); // get last one
-        for (GridDirection direction : directions) { // rotate terrain through temporary:
-            temporary = terrain.put(direction, temporary);
+    private static Map<Integer, Set<GridDirection>> createMeepleSpotCache() {
+        Map<Integer, Set<GridDirection>> cache = new HashMap<>();
+        for (TileType type : TileType.values()) {
+            TileTerrain terrain = new TileTerrain(pack(type));
+            for (int rotation = 0; rotation < TileRotation.values().length; rotation++) {
+                if (!cache.containsKey(terrain.terrain)) {
+                    cache.put(terrain.terrain, terrain.createMeepleSpots());
+                }
+                terrain.rotateSides();
+            }
+        }
+        return Collections.unmodifiableMap(cache);
+    }
+
+    private static int pack(TileType type) {
+        int packedTerrain = 0;
+        for (int i = 0; i < GridDirection.values().length; i++) {
+            packedTerrain |= type.getTerrain()[i].ordinal() << i * BITS_PER_DIRECTION;
         }
-        createMeepleSpots();
+        return packedTerrain;
+    }
+
+    /**
+     * Rotates the packed terrain of four sides clockwise, each side receives the terrain of its counterclockwise
+     * neighbor.
+     */
+    private static int rotateSidesRight(int sides) {
+        return (sides << BITS_PER_DIRECTION | sides >>> SIDES_BITS - BITS_PER_DIRECTION) & SIDES_MASK;
+    }
+
+    /**
+     * Rotates the packed terrain of four sides counterclockwise, each side receives the terrain of its clockwise neighbor.
+     */
+    private static int rotateSidesLeft(int sides) {
+        return sides >>> BITS_PER_DIRECTION | (sides & DIRECTION_MASK) << SIDES_BITS - BITS_PER_DIRECTION;
     }
 }
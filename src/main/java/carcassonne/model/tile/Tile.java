@@ -14,7 +14,7 @@ import carcassonne.model.grid.GridPattern;
 import carcassonne.model.grid.GridSpot;
 import carcassonne.model.terrain.RotationDirection;
 import carcassonne.model.terrain.TerrainType;
-import carcassonne.model.terrain.TileTerrain;
+import carcassonne.model.terrain.TerrainProfile;
 import carcassonne.settings.GameSettings;
 import carcassonne.util.ConcurrentTileImageScaler;
 
@@ -23,10 +23,9 @@ import carcassonne.util.ConcurrentTileImageScaler;
  * @author Timur Saglam
  */
 public class Tile {
-    private static final int CASTLE_THRESHOLD = 6; // size required for a castle to have an emblem
     protected GridSpot gridSpot;
     protected Meeple meeple;
-    private final TileTerrain terrain;
+    private TerrainProfile terrain;
     private final TileType type;
     private TileRotation rotation;
     private final int rotationLimit;
@@ -41,8 +40,8 @@ public class Tile {
             throw new IllegalArgumentException("Tile type cannot be null");
         }
         this.type = type;
-        terrain = new TileTerrain(type);
         rotation = TileRotation.UP;
+        terrain = TerrainProfile.of(type, rotation);
         meeple = null;
         rotationLimit = TileUtil.rotationLimitFor(type);
     }
@@ -57,6 +56,15 @@ public class Tile {
         return getTerrain(direction) == other.getTerrain(direction.opposite());
     }
 
+    /**
+     * Returns the terrain on the four edges of the tile in its current rotation.
+     * @return the edge signature.
+     * @see carcassonne.model.grid.EdgeSignature
+     */
+    public int getEdgeSignature() {
+        return terrain.getEdgeSignature();
+    }
+
     /**
      * Getter for spot where the tile is placed
      * @return the grid spot, or null if it is not placed yet.
@@ -155,7 +163,7 @@ public class Tile {
      * @return if it can be potentially placed. Does not check whether enemy players sit on the pattern.
      */
     public boolean hasMeepleSpot(GridDirection direction) {
-        return terrain.getMeepleSpots().contains(direction);
+        return terrain.hasMeepleSpot(direction);
     }
 
     /**
@@ -163,13 +171,7 @@ public class Tile {
      * @return true if it has an emblem, which doubles the points of this tile.
      */
     public final boolean hasEmblem() {
-        int castleSize = 0;
-        for (GridDirection direction : GridDirection.values()) {
-            if (TerrainType.CASTLE.equals(terrain.at(direction))) {
-                castleSize++;
-            }
-        }
-        return castleSize >= CASTLE_THRESHOLD;
+        return terrain.hasEmblem();
     }
 
     /**
@@ -203,7 +205,6 @@ public class Tile {
                 if (pattern.isNotOccupied() || pattern.isOccupiedBy(player) && settings.isAllowingFortifying()) {
                     placeable = true; // can place meeple
                 }
-                pattern.removeTileTags();
             }
         }
         return placeable;
@@ -222,9 +223,22 @@ public class Tile {
         if (this.meeple != null || !allowsPlacingMeeple(position, player, settings)) {
             throw new IllegalArgumentException("Tile can not have already a meeple placed on it: " + this);
         }
+        forceMeeplePlacement(meeple, position);
+    }
+
+    /**
+     * Forces to place a meeple on the placed tile without checking the placement rules.
+     * @param meeple is the meeple to place.
+     * @param position is the position of the meeple on the tile.
+     */
+    public void forceMeeplePlacement(Meeple meeple, GridDirection position) {
+        if (this.meeple != null || !isPlaced()) {
+            throw new IllegalStateException("Meeple can only be placed on placed tiles without meeple: " + this);
+        }
         this.meeple = meeple;
         meeple.setLocation(gridSpot);
         meeple.setPosition(position);
+        gridSpot.registerMeeple(meeple);
     }
 
     /**
@@ -234,6 +248,7 @@ public class Tile {
         if (meeple == null) {
             throw new IllegalStateException("Meeple has already been removed.");
         }
+        gridSpot.unregisterMeeple(meeple);
         meeple.removePlacement();
         meeple = null;
     }
@@ -242,25 +257,25 @@ public class Tile {
      * Turns a tile 90 degree to the left.
      */
     public void rotateLeft() {
-        terrain.rotateLeft();
         rotation = rotation.rotate(RotationDirection.LEFT);
+        terrain = TerrainProfile.of(type, rotation);
     }
 
     /**
      * Turns a tile 90 degree to the right.
      */
     public void rotateRight() {
-        terrain.rotateRight(); // TODO (MEDIUM) [PERFORMANCE] can get fairly expensive when executed often.
         rotation = rotation.rotate(RotationDirection.RIGHT);
+        terrain = TerrainProfile.of(type, rotation);
     }
 
     /**
-     * Turns a tile 90 degree to the right.
+     * Turns a tile to a specific rotation.
+     * @param targetRotation is the rotation to turn to.
      */
     public void rotateTo(TileRotation targetRotation) {
-        while (rotation != targetRotation) {
-            rotateRight();
-        }
+        rotation = targetRotation;
+        terrain = TerrainProfile.of(type, rotation);
     }
 
     /**
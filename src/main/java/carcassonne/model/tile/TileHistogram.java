@@ -0,0 +1,102 @@
+package carcassonne.model.tile;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import carcassonne.model.grid.EdgeSignature;
+import carcassonne.model.terrain.TerrainProfile;
+
+/**
+ * Counts the tiles of a tile stack by their type and by the edge signatures of the spots they fit on in any rotation.
+ * Every tile type fits on a fixed set of spot signatures, which are all subsets of the edges of its rotations, so adding
+ * or removing a tile only updates a constant number of counters. The counters are atomic, which allows reading them from
+ * other threads while the stack changes.
+ * @author Timur Saglam
+ */
+final class TileHistogram {
+    private static final Map<Integer, Integer> SIGNATURE_INDICES = new HashMap<>(); // dense indices of fitting signatures
+    private static final int[][] FITTING_SIGNATURES = createFittingSignatures(); // signature indices per tile type
+
+    private final AtomicIntegerArray typeCounts;
+    private final AtomicIntegerArray signatureCounts;
+
+    /**
+     * Creates a histogram without any tiles.
+     */
+    TileHistogram() {
+        typeCounts = new AtomicIntegerArray(TileType.values().length);
+        signatureCounts = new AtomicIntegerArray(SIGNATURE_INDICES.size());
+    }
+
+    /**
+     * Counts an additional tile.
+     * @param type is the type of the tile.
+     */
+    void add(TileType type) {
+        update(type, 1);
+    }
+
+    /**
+     * Counts several additional tiles of the same type.
+     * @param type is the type of the tiles.
+     * @param amount is the number of tiles.
+     */
+    void add(TileType type, int amount) {
+        update(type, amount);
+    }
+
+    /**
+     * Returns the number of tiles of a specific type.
+     * @param type is the type.
+     * @return the number of tiles.
+     */
+    int count(TileType type) {
+        return typeCounts.get(type.ordinal());
+    }
+
+    /**
+     * Returns the number of tiles that fit on a spot in at least one of their rotations.
+     * @param spotSignature is the edge signature of the spot.
+     * @return the number of fitting tiles.
+     */
+    int countFitting(int spotSignature) {
+        Integer index = SIGNATURE_INDICES.get(spotSignature);
+        return index == null ? 0 : signatureCounts.get(index);
+    }
+
+    /**
+     * Stops counting a tile.
+     * @param type is the type of the tile.
+     */
+    void remove(TileType type) {
+        update(type, -1);
+    }
+
+    private void update(TileType type, int delta) {
+        typeCounts.addAndGet(type.ordinal(), delta);
+        for (int index : FITTING_SIGNATURES[type.ordinal()]) {
+            signatureCounts.addAndGet(index, delta);
+        }
+    }
+
+    private static int[][] createFittingSignatures() {
+        int[][] fittingSignatures = new int[TileType.values().length][];
+        for (TileType type : TileType.values()) {
+            fittingSignatures[type.ordinal()] = fittingSignatures(type);
+        }
+        return fittingSignatures;
+    }
+
+    private static int[] fittingSignatures(TileType type) {
+        Map<Integer, Integer> indices = new HashMap<>(); // keeps every signature once, even if several rotations fit
+        for (TileRotation rotation : TileRotation.values()) {
+            int tileSignature = TerrainProfile.of(type, rotation).getEdgeSignature();
+            for (int edges = 0; edges < EdgeSignature.edgeSubsets(); edges++) {
+                int signature = EdgeSignature.restrict(tileSignature, edges);
+                indices.put(signature, SIGNATURE_INDICES.computeIfAbsent(signature, key -> SIGNATURE_INDICES.size()));
+            }
+        }
+        return indices.values().stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -1,23 +1,33 @@
 package carcassonne.model.tile;
 
-import java.util.Collections;
+import java.util.ArrayDeque;
 import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Queue;
-import java.util.Random;
 import java.util.Set;
+import java.util.SplittableRandom;
 
 /**
- * The stack of tiles for a game.
+ * The stack of tiles for a game. The stack does not hold tiles but compact codes of their types and rotations in an
+ * array, where a cursor points at the next code to draw. A tile is only created when it is drawn, its terrain is shared
+ * with all other tiles of the same type and rotation. Returned tiles are drawn after all remaining codes. All randomness
+ * of the stack, which are the initial rotations and the order of the tiles, comes from a single random generator, so
+ * stacks created with the same seed are identical. The stack counts its tiles by type and by the spots they fit on, and
+ * these counts can be read from any thread.
  * @author Timur Saglam
  */
 public class TileStack {
-    private final List<Tile> tiles;
+    private static final TileType[] TYPES = TileType.values();
+    private static final TileRotation[] ROTATIONS = TileRotation.values();
+    private static final int ROTATION_BITS = 2;
+    private static final int ROTATION_MASK = (1 << ROTATION_BITS) - 1;
+    private final short[] codes; // tile types and rotations, drawn before the cursor
     private final Queue<Tile> returnedTiles;
     private final Set<Tile> returnHistory;
+    private final TileHistogram histogram;
+    private final SplittableRandom random;
     private final int multiplier;
     private final int initialSize;
+    private int cursor; // index of the next code to draw
 
     /**
      * Basic constructor, creates the tile stack.
@@ -29,24 +39,21 @@ public class TileStack {
     }
 
     /**
-     * Creates a tile stack with a pseudo-random tile order.
+     * Creates a tile stack with pseudo-random tile rotations and a pseudo-random tile order.
      * @param distribution is the tile distribution according which the stack is filled.
      * @param multiplier is the tile stack multiplier, meaning how often the distribution is added to the stack.
-     * @param sortingSeed is the seed for the tile order.
+     * @param seed is the game seed from which all randomness of the stack is derived, or null for a random seed.
      */
-    public TileStack(TileDistribution distribution, int multiplier, Long sortingSeed) {
+    public TileStack(TileDistribution distribution, int multiplier, Long seed) {
         this.multiplier = multiplier;
-        tiles = new LinkedList<>();  // LinkedList is better for a stack here
-        returnedTiles = new LinkedList<>();
+        random = seed == null ? new SplittableRandom() : new SplittableRandom(seed);
+        returnedTiles = new ArrayDeque<>();
         returnHistory = new HashSet<>();
-        fillStack(distribution);
+        histogram = new TileHistogram();
+        codes = fillStack(distribution);
         initialSize = getSize();
         rotateRandomly();
-        if (sortingSeed == null) {
-            Collections.shuffle(tiles);
-        } else {
-            Collections.shuffle(tiles, new Random(sortingSeed));
-        }
+        shuffle();
     }
 
     /**
@@ -54,14 +61,37 @@ public class TileStack {
      * @return the tile or null if the stack is empty.
      */
     public Tile drawTile() {
-        if (tiles.isEmpty() && returnedTiles.isEmpty()) {
+        if (isEmpty()) {
             return null; // no tile to draw!
         }
-        if (tiles.isEmpty()) {
-            return returnedTiles.poll();
+        Tile tile;
+        if (cursor < codes.length) {
+            int code = codes[cursor++];
+            tile = new Tile(TYPES[code >>> ROTATION_BITS]);
+            tile.rotateTo(ROTATIONS[code & ROTATION_MASK]);
+        } else {
+            tile = returnedTiles.poll();
         }
+        histogram.remove(tile.getType());
+        return tile;
+    }
 
-        return tiles.removeFirst();
+    /**
+     * Counts the tiles on the stack that fit on a spot in at least one of their rotations. Can be called from any thread.
+     * @param spotSignature is the edge signature of the spot, as in {@link carcassonne.model.grid.Grid#getEdgeSignature}.
+     * @return the number of fitting tiles.
+     */
+    public int countFittingTiles(int spotSignature) {
+        return histogram.countFitting(spotSignature);
+    }
+
+    /**
+     * Counts the tiles of a specific type on the stack. Can be called from any thread.
+     * @param type is the tile type.
+     * @return the number of tiles of that type.
+     */
+    public int countTiles(TileType type) {
+        return histogram.count(type);
     }
 
     /**
@@ -77,7 +107,7 @@ public class TileStack {
      * @return the amount of tiles on the stack.
      */
     public int getSize() {
-        return tiles.size() + returnedTiles.size();
+        return codes.length - cursor + returnedTiles.size();
     }
 
     /**
@@ -85,7 +115,7 @@ public class TileStack {
      * @return true if empty.
      */
     public boolean isEmpty() {
-        return tiles.isEmpty() && returnedTiles.isEmpty();
+        return cursor == codes.length && returnedTiles.isEmpty();
     }
 
     /**
@@ -98,23 +128,44 @@ public class TileStack {
         }
         if (returnHistory.add(tile)) { // tiles can only be returned once!
             returnedTiles.add(tile);
+            histogram.add(tile.getType());
         }
     }
 
-    private void fillStack(TileDistribution distribution) {
+    private short[] fillStack(TileDistribution distribution) {
+        int size = 0;
+        for (TileType tileType : TileType.validTiles()) {
+            size += distribution.getQuantity(tileType) * multiplier;
+        }
+        short[] encodedTiles = new short[size];
+        int index = 0;
         for (TileType tileType : TileType.validTiles()) {
             int amount = distribution.getQuantity(tileType) * multiplier;
             for (int i = 0; i < amount; i++) {
-                tiles.add(new Tile(tileType));
+                encodedTiles[index++] = encode(tileType, TileRotation.UP);
             }
+            histogram.add(tileType, amount);
         }
+        return encodedTiles;
     }
 
     private void rotateRandomly() {
-        for (Tile tile : tiles) {
-            for (int i = 0; i < Math.round(Math.random() * 4 - 0.5); i++) {
-                tile.rotateRight(); // Random orientation with equal chance for each orientation.
-            }
+        for (int i = 0; i < codes.length; i++) {
+            TileRotation rotation = ROTATIONS[random.nextInt(ROTATIONS.length)]; // equal chance for each orientation
+            codes[i] = encode(TYPES[codes[i] >>> ROTATION_BITS], rotation);
         }
     }
+
+    private void shuffle() { // Fisher-Yates shuffle
+        for (int i = codes.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            short code = codes[i];
+            codes[i] = codes[j];
+            codes[j] = code;
+        }
+    }
+
+    private static short encode(TileType type, TileRotation rotation) {
+        return (short) (type.ordinal() << ROTATION_BITS | rotation.ordinal());
+    }
 }
@@ -1,11 +1,19 @@
 package carcassonne;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInfo;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
@@ -13,6 +21,11 @@ import org.junit.jupiter.params.provider.MethodSource;
 
 import carcassonne.control.state.StateGameOver;
 import carcassonne.control.state.StateIdle;
+import carcassonne.model.Player;
+import carcassonne.model.ai.AbstractCarcassonneMove;
+import carcassonne.model.grid.Grid;
+import carcassonne.model.tile.Tile;
+import carcassonne.model.tile.TileType;
 import carcassonne.testutils.TestGame;
 
 /**
@@ -42,6 +55,35 @@ public class AiPlayerTest extends CarcassonneTest {
         verifyAllPlayersScored(scenario.players);
     }
 
+    @Test
+    @DisplayName("Applying and undoing moves restores the grid")
+    void testApplyingAndUndoingMoves() {
+        Grid grid = new Grid(5, 5, false);
+        Player player = new Player(0, settings);
+        String patternsBefore = grid.getAllPatterns().toString();
+        long hashBefore = grid.getHash();
+        List<Object> frontierBefore = new ArrayList<>(grid.getFrontier());
+        int projectedScoreBefore = grid.getProjectedScore(player, false);
+
+        for (AbstractCarcassonneMove move : grid.getPossibleMoves(new Tile(TileType.CastleWallRoad), player, settings)) {
+            grid.apply(move);
+            assertTrue(move.getGridSpot().isOccupied());
+            assertEquals(move.involvesMeeplePlacement(), move.getGridSpot().getTile().hasMeeple());
+            assertNotEquals(hashBefore, grid.getHash());
+            assertEquals(projectedScoreBefore, grid.getProjectedScore(player, false)); // temporary moves are not booked
+            for (AbstractCarcassonneMove followUp : grid.getPossibleMoves(new Tile(TileType.RoadCurve), player, settings)) {
+                grid.apply(followUp);
+                assertSame(followUp, grid.undo());
+            }
+            assertSame(move, grid.undo());
+            assertFalse(move.getGridSpot().isOccupied());
+            assertEquals(patternsBefore, grid.getAllPatterns().toString());
+            assertEquals(frontierBefore, new ArrayList<>(grid.getFrontier()));
+            assertEquals(hashBefore, grid.getHash());
+        }
+        assertThrows(IllegalStateException.class, grid::undo);
+    }
+
     private static Stream<Arguments> gameScenarios() {
         return Stream.of(Arguments.of(new GameScenario("tiny grid", 2, 3, 3)), //
                 Arguments.of(new GameScenario("wide grid", 2, 25, 3)), //
@@ -4,22 +4,35 @@ import static carcassonne.model.tile.TileRotation.TILTED_LEFT;
 import static carcassonne.model.tile.TileRotation.TILTED_RIGHT;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
 import carcassonne.control.state.StateManning;
+import carcassonne.model.grid.BoardSnapshot;
 import carcassonne.model.grid.Grid;
 import carcassonne.model.grid.GridDirection;
+import carcassonne.model.grid.GridSpot;
 import carcassonne.model.tile.Tile;
 import carcassonne.model.tile.TileRotation;
 import carcassonne.model.tile.TileType;
 
 public class PlacementRuleTest extends CarcassonneTest { // TODO add tests for meeple placement
+    private static final int RANDOM_GRID_SIZE = 9;
+    private static final int RANDOM_TURNS = 400;
 
     @ParameterizedTest
     @ValueSource(booleans = {false, true})
@@ -76,6 +89,48 @@ public class PlacementRuleTest extends CarcassonneTest { // TODO add tests for m
         assertEquals(allowEnclaves, grid.place(1, 3, new Tile(TileType.RoadCrossLarge)));
     }
 
+    @Test
+    @DisplayName("Detecting enclosed free spots locally and by searching the grid border")
+    void testClosingFreeSpotsOff() {
+        game.newRound(2, 3, 4);
+        Grid grid = game.getGrid();
+        game.placeTileWithoutMeeple(TileType.RoadCurve, TileRotation.TILTED_LEFT, 0, 1);
+        game.placeTileWithoutMeeple(TileType.RoadCurve, 2, 1);
+        game.placeTileWithoutMeeple(TileType.Road, 0, 2);
+        game.placeTileWithoutMeeple(TileType.Road, 2, 2);
+
+        assertFalse(grid.isClosingFreeSpotsOff(grid.getSpot(1, 2)));
+        assertTrue(grid.isClosingFreeSpotsOff(grid.getSpot(1, 3))); // would enclose (1|2)
+        assertTrue(grid.isClosingFreeSpotsOff(grid.getSpot(1, 3), GridDirection.NORTH));
+        assertFalse(grid.isClosingFreeSpotsOff(grid.getSpot(1, 3), GridDirection.SOUTH));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 4, 5, 6, 7, 8})
+    @DisplayName("Detecting enclosed free spots locally matches searching the grid border on random boards")
+    void testClosingFreeSpotsOffOnRandomBoards(int seed) {
+        Random random = new Random(seed);
+        Grid grid = new Grid(RANDOM_GRID_SIZE, RANDOM_GRID_SIZE, false);
+        List<TileType> types = TileType.enabledTiles();
+        for (int turn = 0; turn < RANDOM_TURNS && !grid.isFull(); turn++) {
+            List<GridSpot> frontier = new ArrayList<>(grid.getFrontier());
+            for (GridSpot spot : frontier) {
+                assertEquals(isClosingFreeSpotsOffAnywhere(grid, spot), grid.isClosingFreeSpotsOff(spot), "Enclave check differs on " + spot);
+            }
+            Tile tile = new Tile(types.get(random.nextInt(types.size())));
+            tile.rotateTo(TileRotation.values()[random.nextInt(TileRotation.values().length)]);
+            List<GridSpot> matchingSpots = grid.getMatchingSpots(tile);
+            List<GridSpot> placeableSpots = frontier.stream().filter(it -> it.isPlaceable(tile, false)).toList();
+            for (GridSpot spot : frontier) {
+                assertEquals(matchingSpots.contains(spot) && !isClosingFreeSpotsOffAnywhere(grid, spot), placeableSpots.contains(spot));
+            }
+            if (!placeableSpots.isEmpty()) {
+                GridSpot spot = placeableSpots.get(random.nextInt(placeableSpots.size()));
+                assertTrue(grid.place(spot.getX(), spot.getY(), tile));
+            }
+        }
+    }
+
     @Test
     @DisplayName("Placing a tile without any neighboring tiles")
     void testPlacingWithoutNeighborsIsNotAllowed() {
@@ -107,6 +162,208 @@ public class PlacementRuleTest extends CarcassonneTest { // TODO add tests for m
         assertFalse(grid.place(2, 0, new Tile(TileType.CastleCenter)));
     }
 
+    @Test
+    @DisplayName("Frontier contains the free spots next to placed tiles")
+    void testFrontierFollowsPlacements() {
+        game.newRound(2, 3, 3);
+        Grid grid = game.getGrid();
+        assertEquals(4, grid.getFrontier().size());
+        assertTrue(grid.isOnFrontier(grid.getSpot(1, 0)));
+        assertFalse(grid.isOnFrontier(grid.getSpot(0, 0)));
+
+        game.placeTileWithoutMeeple(TileType.CastleWall, TileRotation.UPSIDE_DOWN, 1, 0);
+        assertEquals(5, grid.getFrontier().size());
+        assertFalse(grid.isOnFrontier(grid.getSpot(1, 0)));
+        assertTrue(grid.isOnFrontier(grid.getSpot(0, 0)));
+        assertTrue(grid.isOnFrontier(grid.getSpot(2, 0)));
+    }
+
+    @Test
+    @DisplayName("Frontier spots are found by the terrain on their edges")
+    void testMatchingSpotsOfTiles() {
+        game.newRound(2, 3, 3);
+        Grid grid = game.getGrid();
+        assertEquals(List.of(grid.getSpot(1, 2)), grid.getMatchingSpots(new Tile(TileType.Monastery)));
+        assertEquals(1, grid.countMatchingSpots(new Tile(TileType.CastleCenter)));
+        assertEquals(2, grid.countMatchingSpots(new Tile(TileType.RoadCrossLarge)));
+
+        game.placeTileWithoutMeeple(TileType.Monastery, 1, 2);
+        assertTrue(grid.getMatchingSpots(new Tile(TileType.Monastery)).stream().allMatch(it -> it.isPlaceable(new Tile(TileType.Monastery), true)));
+        assertFalse(grid.getMatchingSpots(new Tile(TileType.Monastery)).contains(grid.getSpot(1, 2)));
+    }
+
+    @Test
+    @DisplayName("Placeability of a spot follows the placements around it")
+    void testPlaceabilityFollowsNeighborPlacements() {
+        game.newRound(2, 3, 3);
+        Grid grid = game.getGrid();
+        GridSpot spot = grid.getSpot(2, 2);
+        assertFalse(spot.isPlaceable(new Tile(TileType.Monastery), false));
+
+        game.placeTileWithoutMeeple(TileType.Monastery, 1, 2);
+        assertTrue(spot.isPlaceable(new Tile(TileType.Monastery), false));
+
+        game.placeTileWithoutMeeple(TileType.RoadCurve, 2, 1); // road towards the spot
+        assertFalse(spot.isPlaceable(new Tile(TileType.Monastery), false));
+    }
+
+    @Test
+    @DisplayName("Occupancy counts and bounding box follow placements")
+    void testOccupancyCounts() {
+        game.newRound(2, 3, 3);
+        Grid grid = game.getGrid();
+        assertEquals(1, grid.countOccupiedSpots());
+        assertEquals(8, grid.countFreeSpots());
+        assertEquals(new Rectangle(1, 1, 1, 1), grid.getBoundingBox());
+
+        game.placeTileWithoutMeeple(TileType.Monastery, 1, 2);
+        assertEquals(2, grid.countOccupiedSpots());
+        assertEquals(2, grid.countOccupiedSpotsInColumn(1));
+        assertEquals(1, grid.countOccupiedSpotsInRow(2));
+        assertEquals(0, grid.countOccupiedSpotsInRow(0));
+        assertEquals(new Rectangle(1, 1, 1, 2), grid.getBoundingBox());
+        assertFalse(grid.isFull());
+        assertThrows(IllegalArgumentException.class, () -> grid.countOccupiedSpotsInRow(3));
+    }
+
+    @Test
+    @DisplayName("Board snapshots follow tiles and meeples")
+    void testBoardSnapshotContents() {
+        game.newRound(2, 3, 3);
+        BoardSnapshot before = game.getGrid().snapshot();
+        assertEquals(TileType.CastleWallRoad, before.getTileType(1, 1));
+        assertFalse(before.isOccupied(1, 2));
+        assertNull(before.getMeeplePosition(1, 2));
+
+        game.placeTileAndMeeple(TileType.Monastery, 1, 2, GridDirection.CENTER);
+        BoardSnapshot after = game.getGrid().snapshot();
+        assertEquals(TileType.Monastery, after.getTileType(1, 2));
+        assertEquals(TileRotation.UP, after.getTileRotation(1, 2));
+        assertEquals(GridDirection.CENTER, after.getMeeplePosition(1, 2));
+        assertEquals(0, after.getMeepleOwner(1, 2));
+        assertEquals(-1, after.getMeepleOwner(1, 1));
+        assertFalse(before.isOccupied(1, 2)); // snapshots never change
+        assertThrows(IllegalArgumentException.class, () -> after.getTileType(3, 0));
+    }
+
+    @Test
+    @DisplayName("Placing tiles on a very large grid")
+    void testPlacingOnLargeGrid() {
+        Grid grid = new Grid(100_000, 100_000, false);
+        GridSpot foundation = grid.getFoundation();
+        assertEquals(4, grid.getFrontier().size());
+        assertTrue(grid.place(foundation.getX(), foundation.getY() + 1, new Tile(TileType.Monastery)));
+        assertEquals(6, grid.getFrontier().size());
+        assertTrue(grid.getSpot(0, 0).isFree());
+    }
+
+    @Test
+    @DisplayName("Hash of the grid depends on the placed tiles but not on their order")
+    void testGridHashIsIndependentOfPlacementOrder() {
+        Grid first = new Grid(5, 5, false);
+        Grid second = new Grid(5, 5, false);
+        assertEquals(first.getHash(), second.getHash());
+
+        assertTrue(first.place(2, 3, new Tile(TileType.Monastery)));
+        assertNotEquals(second.getHash(), first.getHash());
+        assertTrue(first.place(3, 2, new Tile(TileType.RoadCurve)));
+        assertTrue(second.place(3, 2, new Tile(TileType.RoadCurve)));
+        assertTrue(second.place(2, 3, new Tile(TileType.Monastery)));
+        assertEquals(first.getHash(), second.getHash());
+
+        Grid rotated = new Grid(5, 5, false);
+        Tile tile = new Tile(TileType.RoadCurve);
+        tile.rotateRight();
+        assertTrue(rotated.place(3, 2, tile));
+        assertTrue(rotated.place(2, 3, new Tile(TileType.Monastery)));
+        assertNotEquals(first.getHash(), rotated.getHash());
+    }
+
+    @Test
+    @DisplayName("Hash of the grid is the same for identical looking rotations of symmetric tiles")
+    void testGridHashOfSymmetricTiles() {
+        Grid first = new Grid(5, 5, false);
+        Grid second = new Grid(5, 5, false);
+        Tile tile = new Tile(TileType.RoadCrossLarge);
+        tile.rotateRight();
+        assertTrue(first.place(3, 2, new Tile(TileType.RoadCrossLarge)));
+        assertTrue(second.place(3, 2, tile));
+        assertEquals(first.getHash(), second.getHash());
+    }
+
+    @Test
+    @DisplayName("Snapshots keep the board of their creation and restore it as grid")
+    void testBoardSnapshots() {
+        game.newRound(2, 4, 2);
+        Grid grid = game.getGrid();
+        game.placeTileWithoutMeeple(TileType.Road, TILTED_RIGHT, 0, 0);
+        game.placeTileAndMeeple(TileType.CastleWall, TILTED_RIGHT, 0, 1, GridDirection.EAST);
+        BoardSnapshot snapshot = grid.snapshot();
+        assertSame(snapshot, grid.snapshot());
+
+        game.placeTileWithoutMeeple(TileType.Road, TILTED_RIGHT, 2, 0);
+        assertNotSame(snapshot, grid.snapshot());
+        assertFalse(snapshot.isOccupied(2, 0));
+        assertEquals(TileType.CastleWall, snapshot.getTileType(0, 1));
+        assertEquals(TILTED_RIGHT, snapshot.getTileRotation(0, 1));
+        assertEquals(GridDirection.EAST, snapshot.getMeeplePosition(0, 1));
+        assertEquals(1, snapshot.getMeepleOwner(0, 1)); // placed by the second player
+        assertEquals(-1, snapshot.getMeepleOwner(0, 0));
+
+        Grid restored = grid.snapshot().toGrid(game.getRound()::getPlayer);
+        assertEquals(grid.getHash(), restored.getHash());
+        assertEquals(grid.getAllPatterns().size(), restored.getAllPatterns().size());
+        assertTrue(restored.getSpot(0, 1).getTile().hasMeeple());
+    }
+
+    @Test
+    @DisplayName("Snapshots of a large grid keep the chunks of their creation")
+    void testBoardSnapshotsOfLargeGrid() {
+        Grid grid = new Grid(100_000, 100_000, false);
+        GridSpot foundation = grid.getFoundation();
+        GridSpot near = grid.getSpot(foundation.getX() + 40, foundation.getY()); // in another chunk
+        GridSpot far = grid.getSpot(foundation.getX() + 80, foundation.getY());
+        near.forcePlacement(new Tile(TileType.Monastery));
+        BoardSnapshot first = grid.snapshot();
+
+        far.forcePlacement(new Tile(TileType.Monastery));
+        BoardSnapshot second = grid.snapshot();
+
+        assertTrue(first.isOccupied(near.getX(), near.getY()));
+        assertFalse(first.isOccupied(far.getX(), far.getY()));
+        assertTrue(second.isOccupied(near.getX(), near.getY()));
+        assertTrue(second.isOccupied(far.getX(), far.getY()));
+        assertEquals(TileType.Monastery, second.getTileType(far.getX(), far.getY()));
+        assertEquals(foundation.getTile().getType(), first.getTileType(foundation.getX(), foundation.getY()));
+    }
+
+    @Test
+    @DisplayName("Snapshots restore tiles that are not connected to the foundation")
+    void testBoardSnapshotsOfDisconnectedTiles() {
+        game.newRound(2, 70, 3);
+        Grid grid = game.getGrid();
+        GridSpot monastery = grid.getSpot(1, 1); // in another chunk than the foundation
+        GridSpot road = grid.getSpot(2, 1);
+        monastery.forcePlacement(new Tile(TileType.Monastery));
+        road.forcePlacement(new Tile(TileType.Road));
+        monastery.getTile().forceMeeplePlacement(game.getRound().getPlayer(1).getMeeple(), GridDirection.CENTER);
+
+        Grid restored = grid.snapshot().toGrid(game.getRound()::getPlayer);
+        assertEquals(grid.countOccupiedSpots(), restored.countOccupiedSpots());
+        assertEquals(grid.getHash(), restored.getHash());
+        assertEquals(TileType.Road, restored.getSpot(2, 1).getTile().getType());
+        assertTrue(restored.getSpot(1, 1).getTile().hasMeeple());
+    }
+
+    private static boolean isClosingFreeSpotsOffAnywhere(Grid grid, GridSpot spot) { // searches the border in every direction
+        for (GridDirection direction : GridDirection.directNeighbors()) {
+            if (grid.getNeighbor(spot, direction) == null && grid.isClosingFreeSpotsOff(spot, direction)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Test
     @DisplayName("Placing a tile on an occupied spot")
     void testPlacingOnOccupiedSpotIsNotAllowed() {
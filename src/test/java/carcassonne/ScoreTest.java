@@ -1,6 +1,13 @@
 package carcassonne;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -9,14 +16,30 @@ import org.junit.jupiter.params.provider.ValueSource;
 
 import carcassonne.control.state.StateGameOver;
 import carcassonne.control.state.StatePlacing;
+import carcassonne.model.Player;
+import carcassonne.model.ai.AbstractCarcassonneMove;
+import carcassonne.model.grid.CastleAndRoadPattern;
+import carcassonne.model.grid.FieldsPattern;
+import carcassonne.model.grid.Grid;
 import carcassonne.model.grid.GridDirection;
+import carcassonne.model.grid.GridPattern;
+import carcassonne.model.grid.GridSpot;
+import carcassonne.model.grid.MonasteryPattern;
+import carcassonne.model.grid.PatternEvent;
+import carcassonne.model.grid.PatternEventType;
+import carcassonne.model.terrain.TerrainType;
+import carcassonne.model.tile.Tile;
 import carcassonne.model.tile.TileRotation;
 import carcassonne.model.tile.TileType;
+import carcassonne.settings.GameSettings;
 
 /**
  * Tests related to the score calculation of grid patterns.
  */
 public class ScoreTest extends CarcassonneTest {
+    private static final int RANDOM_GRID_SIZE = 80; // spans several chunks and therefore several scan regions
+    private static final int RANDOM_TURNS = 400;
+    private static final int RANDOM_PLAYERS = 3;
 
     @Test
     @DisplayName("Completion of a monastery")
@@ -36,6 +59,25 @@ public class ScoreTest extends CarcassonneTest {
         assertEquals(9, game.getRound().getPlayer(0).getScore());
     }
 
+    @Test
+    @DisplayName("Size of an incomplete monastery")
+    void testIncompleteMonasterySize() {
+        game.newRound(2, 5, 4);
+        GridSpot monastery = game.getGrid().getSpot(2, 2);
+
+        game.placeTileAndMeeple(TileType.Monastery, 2, 2, GridDirection.CENTER);
+        MonasteryPattern earlierPattern = new MonasteryPattern(monastery);
+        assertEquals(2, earlierPattern.getSize()); // monastery and foundation
+        game.placeTileWithoutMeeple(TileType.RoadCurve, TileRotation.TILTED_LEFT, 1, 1);
+        game.placeTileWithoutMeeple(TileType.Road, 1, 2);
+        assertEquals(2, earlierPattern.getSize()); // keeps the spots of its creation
+
+        MonasteryPattern pattern = new MonasteryPattern(monastery);
+        assertEquals(4, pattern.getSize());
+        assertFalse(pattern.isComplete());
+        assertEquals(4, game.getGrid().getProjectedScore(game.getRound().getPlayer(0), TerrainType.MONASTERY, false));
+    }
+
     @Test
     @DisplayName("Completion of starting tile castle")
     void testCastleCompletion() {
@@ -79,4 +121,159 @@ public class ScoreTest extends CarcassonneTest {
         assertEquals(expectedScore, game.getRound().getPlayer(1).getScore());
     }
 
+    @Test
+    @DisplayName("Completion of road between two junctions")
+    void testRoadCompletion() {
+        game.newRound(2, 3, 3);
+
+        // Each branch of a junction is a separate road:
+        game.placeTileAndMeeple(TileType.RoadJunctionSmall, 0, 1, GridDirection.EAST);
+        assertEquals(0, game.getRound().getPlayer(0).getScore());
+        game.placeTileWithoutMeeple(TileType.RoadJunctionSmall, 2, 1);
+        assertState(StatePlacing.class);
+
+        assertEquals(3, game.getRound().getPlayer(0).getScore());
+        assertEquals(0, game.getRound().getPlayer(1).getScore());
+    }
+
+    @Test
+    @DisplayName("Pattern events of a road completion")
+    void testRoadCompletionEvents() {
+        game.newRound(2, 3, 3);
+        List<PatternEvent> events = new ArrayList<>();
+        game.getGrid().addPatternListener(events::add);
+
+        game.placeTileAndMeeple(TileType.RoadJunctionSmall, 0, 1, GridDirection.EAST);
+        assertTrue(events.stream().anyMatch(it -> it.type() == PatternEventType.EXTENDED && it.terrain() == TerrainType.ROAD));
+        assertTrue(events.stream().noneMatch(it -> it.type() == PatternEventType.COMPLETED));
+        events.clear();
+
+        game.placeTileWithoutMeeple(TileType.RoadJunctionSmall, 2, 1);
+        Player player = game.getRound().getPlayer(0);
+        List<PatternEvent> completions = events.stream().filter(it -> it.type() == PatternEventType.COMPLETED).toList();
+        assertEquals(1, completions.size());
+        assertEquals(TerrainType.ROAD, completions.get(0).terrain());
+        assertEquals(Map.of(player, 3), completions.get(0).scoreDeltas());
+        List<PatternEvent> disbursements = events.stream().filter(it -> it.type() == PatternEventType.DISBURSED).toList();
+        assertEquals(1, disbursements.size());
+        assertEquals(Map.of(player, 3), disbursements.get(0).scoreDeltas());
+        assertEquals(1, disbursements.get(0).meeples().size());
+    }
+
+    @Test
+    @DisplayName("Projected score of an incomplete road")
+    void testProjectedRoadScore() {
+        game.newRound(2, 3, 3);
+        Player player = game.getRound().getPlayer(0);
+
+        game.placeTileAndMeeple(TileType.RoadJunctionSmall, 0, 1, GridDirection.EAST);
+        assertEquals(2, game.getGrid().getProjectedScore(player, TerrainType.ROAD, false));
+        assertEquals(2, game.getGrid().getProjectedScore(player, false));
+        assertEquals(0, game.getGrid().getProjectedScore(game.getRound().getPlayer(1), false));
+
+        game.placeTileWithoutMeeple(TileType.RoadJunctionSmall, 2, 1); // completes the road
+        assertEquals(0, game.getGrid().getProjectedScore(player, TerrainType.ROAD, false));
+    }
+
+    @Test
+    @DisplayName("Dominant players of an occupied road")
+    void testDominantPlayers() {
+        game.newRound(2, 3, 3);
+        Player player = game.getRound().getPlayer(0);
+        Player otherPlayer = game.getRound().getPlayer(1);
+
+        game.placeTileAndMeeple(TileType.RoadJunctionSmall, 0, 1, GridDirection.EAST);
+        GridPattern road = new CastleAndRoadPattern(game.getGrid().getSpot(0, 1), GridDirection.EAST, TerrainType.ROAD);
+        assertEquals(List.of(player), road.getDominantPlayers());
+        assertEquals(0b01, road.getDominantPlayerMask());
+        assertTrue(road.isDominant(player));
+        assertFalse(road.isDominant(otherPlayer));
+        assertEquals(2, road.getScoreFor(player));
+        assertEquals(0, road.getScoreFor(otherPlayer));
+    }
+
+    @Test
+    @DisplayName("Field adjacent to completed castle")
+    void testFieldScoring() {
+        game.newRound(2, 3, 3);
+        game.placeTileWithoutMeeple(TileType.CastleWall, TileRotation.UPSIDE_DOWN, 1, 0);
+
+        GridSpot foundation = game.getGrid().getFoundation();
+        assertEquals(3, new FieldsPattern(foundation, GridDirection.NORTH_EAST).getPatternScore());
+        assertEquals(0, new FieldsPattern(foundation, GridDirection.SOUTH).getPatternScore());
+    }
+
+    @Test
+    @DisplayName("Field size counts every field segment once")
+    void testFieldSize() {
+        Grid grid = new Grid(5, 5, false);
+        GridSpot tube = grid.getSpot(0, 1);
+        GridSpot sides = grid.getSpot(0, 0);
+        tube.forcePlacement(new Tile(TileType.CastleTube));
+        Tile tile = new Tile(TileType.CastleCenterSides);
+        tile.rotateTo(TileRotation.TILTED_LEFT);
+        sides.forcePlacement(tile);
+
+        FieldsPattern field = new FieldsPattern(tube, GridDirection.NORTH);
+        assertEquals(2, field.getSize()); // the field enters the upper tile three times, but it is one segment
+        assertEquals(0, field.getPatternScore());
+    }
+
+    @Test
+    @DisplayName("Only occupied patterns are scored at the end of a game")
+    void testOccupiedPatterns() {
+        game.newRound(2, 3, 3);
+        game.placeTileAndMeeple(TileType.RoadJunctionSmall, 0, 1, GridDirection.EAST);
+        game.placeTileWithoutMeeple(TileType.Monastery, 1, 2);
+
+        List<GridPattern> patterns = game.getGrid().getOccupiedPatterns();
+        assertEquals(1, patterns.size());
+        assertEquals(TerrainType.ROAD, patterns.get(0).getType());
+        assertTrue(patterns.get(0).isOccupiedBy(game.getRound().getPlayer(0)));
+        assertEquals(patterns.size(), game.getGrid().getAllPatterns().stream().filter(it -> !it.isNotOccupied()).count());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 4})
+    @DisplayName("Final scoring of the occupied patterns of random boards")
+    void testFinalScoringOfRandomBoards(int seed) {
+        boolean splitScore = seed % 2 == 0;
+        Player[] occupiedScoring = playRandomGame(seed, splitScore, true);
+        Player[] allScoring = playRandomGame(seed, splitScore, false);
+        for (int number = 0; number < RANDOM_PLAYERS; number++) {
+            for (TerrainType terrain : TerrainType.values()) {
+                assertEquals(allScoring[number].getTerrainScore(terrain), occupiedScoring[number].getTerrainScore(terrain));
+            }
+            assertEquals(allScoring[number].getScore(), occupiedScoring[number].getScore());
+        }
+    }
+
+    private static Player[] playRandomGame(long seed, boolean splitScore, boolean occupiedPatternsOnly) {
+        GameSettings settings = new GameSettings();
+        Random random = new Random(seed);
+        Grid grid = new Grid(RANDOM_GRID_SIZE, RANDOM_GRID_SIZE, false);
+        Player[] players = new Player[RANDOM_PLAYERS];
+        for (int number = 0; number < RANDOM_PLAYERS; number++) {
+            players[number] = new Player(number, settings);
+        }
+        List<TileType> types = TileType.enabledTiles();
+        for (int turn = 0; turn < RANDOM_TURNS; turn++) {
+            Player player = players[turn % RANDOM_PLAYERS];
+            Tile tile = new Tile(types.get(random.nextInt(types.size())));
+            List<AbstractCarcassonneMove> moves = new ArrayList<>(grid.getPossibleMoves(tile, player, settings));
+            if (!moves.isEmpty()) {
+                AbstractCarcassonneMove move = moves.get(random.nextInt(moves.size()));
+                tile.rotateTo(move.getRequiredTileRotation());
+                grid.place(move.getX(), move.getY(), tile);
+                if (move.involvesMeeplePlacement() && random.nextBoolean()) {
+                    tile.placeMeeple(player, move.getMeeplePosition(), settings);
+                }
+                grid.getModifiedPatterns(grid.getSpot(move.getX(), move.getY())).forEach(it -> it.disburse(splitScore));
+            }
+        }
+        List<GridPattern> patterns = occupiedPatternsOnly ? grid.getOccupiedPatterns() : grid.getAllPatterns();
+        patterns.forEach(it -> it.forceDisburse(splitScore));
+        return players;
+    }
+
 }
@@ -0,0 +1,35 @@
+package carcassonne.model.terrain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import carcassonne.model.grid.GridDirection;
+import carcassonne.model.tile.TileRotation;
+import carcassonne.model.tile.TileType;
+
+/**
+ * Test cases for the precomputed {@link TerrainProfile}.
+ */
+public class TerrainProfileTest {
+
+    @ParameterizedTest
+    @EnumSource(TileType.class)
+    @DisplayName("Profiles match the computed terrain in every rotation.")
+    void testProfilesMatchTerrain(TileType type) {
+        TileTerrain terrain = new TileTerrain(type);
+        for (TileRotation rotation : TileRotation.values()) {
+            TerrainProfile profile = TerrainProfile.of(type, rotation);
+            for (GridDirection from : GridDirection.values()) {
+                assertEquals(terrain.at(from), profile.at(from), "Terrain differs at " + from + " in " + rotation);
+                assertEquals(terrain.getMeepleSpots().contains(from), profile.hasMeepleSpot(from));
+                for (GridDirection towards : GridDirection.values()) {
+                    assertEquals(terrain.isConnected(from, towards), profile.isConnected(from, towards));
+                }
+            }
+            terrain.rotateRight();
+        }
+    }
+}
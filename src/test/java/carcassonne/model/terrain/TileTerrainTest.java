@@ -0,0 +1,61 @@
+package carcassonne.model.terrain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import carcassonne.model.grid.GridDirection;
+import carcassonne.model.tile.TileType;
+
+/**
+ * Test cases for the rotation of the {@link TileTerrain}.
+ */
+public class TileTerrainTest {
+
+    @ParameterizedTest
+    @EnumSource(TileType.class)
+    @DisplayName("Rotating right moves the terrain clockwise.")
+    void testRotateRight(TileType type) {
+        TileTerrain terrain = new TileTerrain(type);
+        terrain.rotateRight();
+        assertEquals(type.getTerrain()[GridDirection.WEST.ordinal()], terrain.at(GridDirection.NORTH));
+        assertEquals(type.getTerrain()[GridDirection.NORTH.ordinal()], terrain.at(GridDirection.EAST));
+        assertEquals(type.getTerrain()[GridDirection.NORTH_WEST.ordinal()], terrain.at(GridDirection.NORTH_EAST));
+        assertEquals(type.getTerrain()[GridDirection.SOUTH_WEST.ordinal()], terrain.at(GridDirection.NORTH_WEST));
+        assertEquals(type.getTerrain()[GridDirection.CENTER.ordinal()], terrain.at(GridDirection.CENTER));
+    }
+
+    @ParameterizedTest
+    @EnumSource(TileType.class)
+    @DisplayName("Rotating left and right restores the original terrain and meeple spots.")
+    void testRotateBack(TileType type) {
+        TileTerrain original = new TileTerrain(type);
+        TileTerrain terrain = new TileTerrain(type);
+        terrain.rotateLeft();
+        terrain.rotateRight();
+        for (GridDirection direction : GridDirection.values()) {
+            assertEquals(original.at(direction), terrain.at(direction), "Terrain differs at " + direction);
+        }
+        assertEquals(original.getMeepleSpots(), terrain.getMeepleSpots());
+    }
+
+    @ParameterizedTest
+    @EnumSource(TileType.class)
+    @DisplayName("Packed terrain and meeple spots are shared by terrains with the same rotation.")
+    void testPackedTerrain(TileType type) {
+        TileTerrain terrain = new TileTerrain(type);
+        TileTerrain rotated = new TileTerrain(type);
+        for (int rotation = 0; rotation < 4; rotation++) {
+            terrain.rotateRight();
+        }
+        rotated.rotateLeft();
+        rotated.rotateRight();
+        for (GridDirection direction : GridDirection.values()) {
+            assertEquals(type.getTerrain()[direction.ordinal()], TileTerrain.at(terrain.getPackedTerrain(), direction));
+        }
+        assertSame(terrain.getMeepleSpots(), rotated.getMeepleSpots());
+    }
+}
@@ -0,0 +1,77 @@
+package carcassonne.model.tile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import carcassonne.model.grid.EdgeSignature;
+import carcassonne.model.grid.GridDirection;
+import carcassonne.model.terrain.TerrainType;
+
+/**
+ * Test cases for the {@link TileStack}.
+ */
+public class TileStackTest {
+
+    private static final long SEED = 42L;
+    private static final int MULTIPLIER = 2;
+
+    @Test
+    @DisplayName("Stacks with the same seed draw the same tiles in the same rotations.")
+    void testReproducibleStack() {
+        List<String> first = drawAll(new TileStack(new TileDistribution(), MULTIPLIER, SEED));
+        List<String> second = drawAll(new TileStack(new TileDistribution(), MULTIPLIER, SEED));
+        assertEquals(first, second, "Stacks with the same seed should be identical!");
+    }
+
+    @Test
+    @DisplayName("Returned tiles are drawn after the remaining tiles and only once.")
+    void testPutBack() {
+        TileStack stack = new TileStack(new TileDistribution(), 1, SEED);
+        int initialSize = stack.getInitialSize();
+        Tile tile = stack.drawTile();
+        assertEquals(initialSize - 1, stack.getSize());
+
+        stack.putBack(tile);
+        stack.putBack(tile);
+        assertEquals(initialSize, stack.getSize(), "A tile should only be returned once!");
+        for (int i = 1; i < initialSize; i++) {
+            stack.drawTile();
+        }
+        assertSame(tile, stack.drawTile());
+        assertTrue(stack.isEmpty());
+        assertNull(stack.drawTile());
+    }
+
+    @Test
+    @DisplayName("Tile counts follow drawn and returned tiles.")
+    void testTileCounts() {
+        TileStack stack = new TileStack(new TileDistribution(), MULTIPLIER, SEED);
+        Tile tile = stack.drawTile();
+        int count = stack.countTiles(tile.getType());
+        assertEquals(tile.getType().getAmount() * MULTIPLIER - 1, count);
+        assertEquals(stack.getSize(), stack.countFittingTiles(EdgeSignature.UNCONSTRAINED));
+        assertEquals(0, stack.countFittingTiles(EdgeSignature.of(GridDirection.NORTH, TerrainType.MONASTERY)));
+
+        int fitting = stack.countFittingTiles(tile.getEdgeSignature());
+        stack.putBack(tile);
+        assertEquals(count + 1, stack.countTiles(tile.getType()));
+        assertEquals(fitting + 1, stack.countFittingTiles(tile.getEdgeSignature()));
+    }
+
+    private static List<String> drawAll(TileStack stack) {
+        List<String> tiles = new ArrayList<>();
+        while (!stack.isEmpty()) {
+            Tile tile = stack.drawTile();
+            tiles.add(tile.getType() + " " + tile.getRotation());
+        }
+        return tiles;
+    }
+}